@@ -5,8 +5,8 @@ import shared.Message;
 import shared.SocketAuctionClient;
 import java.io.*;
 import java.net.Socket;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 /**
@@ -22,10 +22,13 @@ public class Agent implements Runnable {
 
     private final String agentName;
     private final int agentID;
+    private static final int RECONNECT_ATTEMPTS = 5;
     private final BankClient bankSocketClient;
-    private int totalBalance, availableBalance;
-    private Socket bankSocket;
-    private List<AuctionManager> auctionManagers = new ArrayList<>();
+    private volatile int totalBalance, availableBalance;
+    private volatile Socket bankSocket;
+    private volatile PrintWriter bankOut;
+    private volatile boolean running = true;
+    private final List<AuctionManager> auctionManagers = new CopyOnWriteArrayList<>();
     private Runnable onBalanceUpdate;
     private Consumer<AuctionManager> onAuctionConnected;
     private Consumer<String> onMessage;
@@ -48,36 +51,77 @@ public class Agent implements Runnable {
     }
     
     /**
-     * Sets up persistent communication socket with bank and actively listens for
-     * incoming messages.
+     * Sets up persistent communication socket with bank and handles each
+     * message the moment it arrives. If the bank closes the channel, a new
+     * one is opened and the bank resends its open auction houses and the
+     * agent's balance.
      */
     @Override
     public void run() {
         try {
-            
-            // Open persistent socket to Bank
-            BufferedReader bankIn = new BufferedReader(new InputStreamReader(bankSocket.getInputStream()));
-            
-            // Notify bank this is the persistent channel for live updates
-            PrintWriter bankOut = new PrintWriter(
-                    new OutputStreamWriter(bankSocket.getOutputStream()), true);
-            bankOut.println(Message.encode("REGISTER_AGENT_CHANNEL",
-                    String.valueOf(agentID)));
-            balanceInquiry(bankOut);
-            
-            while (true) {
-                if (bankIn.ready()) {
-                    String bankMessage = bankIn.readLine();
-                    handleMessage(bankMessage);
+            BufferedReader bankIn = openBankChannel();
+            while (running) {
+                String bankMessage;
+                try {
+                    bankMessage = bankIn.readLine();
+                } catch (IOException e) {
+                    bankMessage = null;
                 }
-                Thread.sleep(100);
+                if (bankMessage == null) {
+                    if (!running || (bankIn = reconnectBank()) == null) {
+                        return;
+                    }
+                    continue;
+                }
+                handleMessage(bankMessage);
             }
         } catch (Exception e) {
             System.err.println("Agent message loop error: " + e.getMessage());
             e.printStackTrace();
         }
     }
-    
+
+    /**
+     * Notifies the bank that the current socket is the persistent channel for
+     * live updates and asks for the balance.
+     * @return Reader for messages from the bank
+     * @throws IOException if the socket is closed
+     */
+    private BufferedReader openBankChannel() throws IOException {
+        BufferedReader bankIn = new BufferedReader(new InputStreamReader(bankSocket.getInputStream()));
+        bankOut = new PrintWriter(
+                new OutputStreamWriter(bankSocket.getOutputStream()), true);
+        bankOut.println(Message.encode("REGISTER_AGENT_CHANNEL",
+                String.valueOf(agentID)));
+        balanceInquiry(bankOut);
+        return bankIn;
+    }
+
+    /**
+     * Opens a new channel to the bank after the previous one closed, retrying
+     * with a growing delay.
+     * @return Reader for the new channel, or null if the bank could not be reached
+     */
+    private BufferedReader reconnectBank() {
+        Socket lost = bankSocket;
+        for (int attempt = 1; attempt <= RECONNECT_ATTEMPTS && running; attempt++) {
+            try {
+                bankSocket = new Socket(lost.getInetAddress(), lost.getPort());
+                return openBankChannel();
+            } catch (IOException e) {
+                System.err.println("Reconnect to bank failed: " + e.getMessage());
+                try {
+                    Thread.sleep(attempt * 1000L);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+        sendGuiMessage("Lost connection to the bank");
+        return null;
+    }
+
     /**
      * Handles incoming messages.
      * @param message The message received
@@ -97,8 +141,18 @@ public class Agent implements Runnable {
                 break;
             }
             case "AUCTION_HOUSE": {
+                // Sent again for every open house when the channel reconnects
+                if (findAuctionManager(parts[3]) != null) {
+                    break;
+                }
                 SocketAuctionClient auctionClient = new SocketAuctionClient();
-                auctionClient.connect(parts[1], Integer.parseInt(parts[2]), agentID);
+                try {
+                    auctionClient.connect(parts[1], Integer.parseInt(parts[2]), agentID);
+                } catch (IOException e) {
+                    System.err.println("Failed to connect to auction house " + parts[3] + ": "
+                            + e.getMessage());
+                    break;
+                }
                 System.out.println("Connection to Auction House " + parts[3] + " successful!");
 
                 AuctionManager auctionManager = new AuctionManager(parts[3],
@@ -114,18 +168,11 @@ public class Agent implements Runnable {
             }
             case "REMOVE_AUCTION_HOUSE": {
                 String removedId = parts[1];
-                AuctionManager toRemove = null;
-
-                for (AuctionManager manager : auctionManagers) {
-                    if (manager.getAuctionId().equals(removedId)) {
-                        toRemove = manager;
-                        break;
-                    }
-                }
+                AuctionManager toRemove = findAuctionManager(removedId);
 
                 if (toRemove != null) {
                     try {
-                        toRemove.getClient().close();
+                        toRemove.close();
                     } catch (IOException e) {
                         System.err.println("Failed to close auction client for removed house: " + e.getMessage());
                     }
@@ -145,6 +192,19 @@ public class Agent implements Runnable {
         
     }
     
+    /**
+     * @param auctionId ID number of an auction house
+     * @return The auction manager connected to it, or null if there is none
+     */
+    private AuctionManager findAuctionManager(String auctionId) {
+        for (AuctionManager manager : auctionManagers) {
+            if (manager.getAuctionId().equals(auctionId)) {
+                return manager;
+            }
+        }
+        return null;
+    }
+
     /**
      * Sends request for account balances to bank
      * @param bankOut Writer that sends messages to bank
@@ -157,11 +217,9 @@ public class Agent implements Runnable {
      * Updates balances without need for bankOut (for auction manager use)
      */
     public void refreshBalance() {
-        try {
-            PrintWriter bankOut = new PrintWriter(bankSocket.getOutputStream(), true);
-            bankOut.println(Message.encode("BALANCE", String.valueOf(agentID)));
-        } catch (Exception e) {
-            System.err.println("Failed to refresh balance: " + e.getMessage());
+        PrintWriter out = bankOut;
+        if (out != null) {
+            balanceInquiry(out);
         }
     }
     
@@ -263,6 +321,7 @@ public class Agent implements Runnable {
             return;
         }
         
+        running = false;
         try {
             bankSocketClient.deregister(agentID);
             sendGuiMessage("Deregistered from bank.");
@@ -272,7 +331,7 @@ public class Agent implements Runnable {
         
         for (AuctionManager manager : auctionManagers) {
             try {
-                manager.getClient().close();
+                manager.close();
             } catch (IOException e) {
                 System.err.println("Error closing connection to auction house: " + e.getMessage());
             }
@@ -1,8 +1,9 @@
 package agent;
 
+import shared.AuctionClient;
 import shared.BankClient;
+import shared.ListQuery;
 import shared.Message;
-import shared.SocketAuctionClient;
 import java.io.*;
 import java.util.*;
 
@@ -17,9 +18,12 @@ import java.util.*;
  */
 public class AuctionManager implements Runnable {
     
+    private static final int LIST_PAGE_SIZE = 100;
+    private static final int RECONNECT_ATTEMPTS = 5;
     private String auctionId;
-    private SocketAuctionClient auctionClient;
+    private AuctionClient auctionClient;
     private BufferedReader in;
+    private volatile boolean closed = false;
     private final List<ItemInfo> items;
     private final BankClient bankClient;
     private Runnable onItemUpdate;
@@ -34,7 +38,7 @@ public class AuctionManager implements Runnable {
      * @param bankClient Client that handles communication between agent and bank.
      * @param agent The agent that the auction manager belongs to.
      */
-    public AuctionManager(String auctionId, SocketAuctionClient auctionClient,
+    public AuctionManager(String auctionId, AuctionClient auctionClient,
                           BankClient bankClient, Agent agent) {
         this.auctionId = auctionId;
         this.auctionClient = auctionClient;
@@ -44,27 +48,91 @@ public class AuctionManager implements Runnable {
     }
     
     /**
-     * Displays initial items available in GUI and actively listens for changes
-     * and messages from auction house.
+     * Displays initial items available in GUI, then blocks reading messages
+     * from the auction house and handles each as it arrives. Returns once
+     * {@link #close()} is called or the house cannot be reached again.
      */
     @Override
     public void run() {
         try {
-            parseItemsList(auctionClient.getAvailableItems());
-            if (onItemUpdate != null) {
-                javafx.application.Platform.runLater(onItemUpdate);
+            loadItems();
+        } catch (IOException e) {
+            if (!resume()) return;
+        }
+        in = auctionClient.getInputStream();
+
+        while (!closed) {
+            try {
+                String line = in.readLine();
+                if (line == null) {
+                    if (!resume()) return;
+                    continue;
+                }
+                handleMessage(line);
+            } catch (IOException e) {
+                if (!resume()) return;
             }
-            in = auctionClient.getInputStream();
-            
-            while (true) {
-                if (in.ready()) {
-                    String line = in.readLine();
-                    handleMessage(line);
+        }
+    }
+
+    /**
+     * Disconnects from the auction house and ends the listener without
+     * reconnecting.
+     * @throws IOException if closing the connection fails
+     */
+    public void close() throws IOException {
+        closed = true;
+        auctionClient.close();
+    }
+
+    /**
+     * Replaces the item list with the auction house's current catalog,
+     * fetched one page at a time.
+     * @throws IOException if communication fails
+     */
+    private void loadItems() throws IOException {
+        items.clear();
+        ListQuery query = new ListQuery();
+        query.setLimit(LIST_PAGE_SIZE);
+        while (query.hasMore()) {
+            parseItemsList(auctionClient.getAvailableItems(query));
+        }
+        if (onItemUpdate != null) {
+            javafx.application.Platform.runLater(onItemUpdate);
+        }
+    }
+
+    /**
+     * Reconnects after the connection to the auction house dropped. The house
+     * replays what was missed since the last version seen; the catalog is only
+     * reloaded if it cannot.
+     * @return false if the auction house could not be reached again, or the
+     * connection was closed on purpose
+     */
+    private boolean resume() {
+        for (int attempt = 1; attempt <= RECONNECT_ATTEMPTS && !closed; attempt++) {
+            try {
+                boolean delta = auctionClient.reconnect();
+                in = auctionClient.getInputStream();
+                if (!delta) {
+                    loadItems();
+                }
+                return true;
+            } catch (IOException e) {
+                System.err.println("Reconnect to auction house " + auctionId + " failed: "
+                        + e.getMessage());
+                try {
+                    Thread.sleep(attempt * 1000L);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
                 }
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
+        if (!closed) {
+            agent.sendGuiMessage("Lost connection to auction house " + auctionId);
+        }
+        return false;
     }
     
     /**
@@ -111,12 +179,28 @@ public class AuctionManager implements Runnable {
         String[] parts = Message.decode(message);
 
         switch (parts[0]) {
+            // Sequenced bid outcome; the reply itself follows the sequence number
+            case "SEQ" -> handleMessage(message.trim().split("\\s+", 3)[2]);
+
+            // End of a resume: missed changes have been replayed
+            case "SYNCED" -> {
+            }
+
+            // The house no longer has the changes since our version
+            case "RESYNC" -> loadItems();
+
+            // Reply to our QUIT; the connection closes next
+            case "GOODBYE" -> {
+            }
+
             case "ACCEPTED" -> {
                 String itemId = parts[1];
                 activeBids.add(itemId);
                 agent.sendGuiMessage("Bid accepted!");
             }
 
+            case "QUEUED" -> agent.sendGuiMessage("Bid on item " + parts[1] + " queued");
+
             case "REJECTED" -> {
                 StringBuilder rejMsg = new StringBuilder("Bid rejected: ");
                     for (int i = 1; i < parts.length; i++) {
@@ -126,6 +210,23 @@ public class AuctionManager implements Runnable {
                 agent.sendGuiMessage(rejMsg.toString());
             }
 
+            case "RESULTS" -> {
+                for (int i = 1; i < parts.length; i++) {
+                    String[] result = parts[i].split(":", 2);
+                    if (result.length != 2) continue;
+
+                    if (result[1].equals("ACCEPTED")) {
+                        activeBids.add(result[0]);
+                        agent.sendGuiMessage("Bid on item " + result[0] + " accepted!");
+                    } else if (result[1].equals("QUEUED")) {
+                        agent.sendGuiMessage("Bid on item " + result[0] + " queued");
+                    } else {
+                        agent.sendGuiMessage("Bid on item " + result[0] + " rejected: " +
+                                result[1].replace('_', ' ').toLowerCase());
+                    }
+                }
+            }
+
             case "OUTBID" -> {
                 String itemId = parts[1];
                 activeBids.remove(itemId);
@@ -137,10 +238,14 @@ public class AuctionManager implements Runnable {
                 int toAuctionHouseId = Integer.parseInt(auctionId);
                 int fromAgentId = auctionClient.getAgentId();
                 String itemId = parts[2];
-                try {
-                    bankClient.transferFunds(fromAgentId, toAuctionHouseId, amount);
-                } catch (Exception e) {
-                    System.err.println("Failed to transfer funds: " + e.getMessage());
+                // Houses that settle with the bank themselves flag it; older ones wait for us to pay
+                boolean houseSettles = parts.length > 3 && parts[3].equals("HOUSE");
+                if (!houseSettles) {
+                    try {
+                        bankClient.transferFunds(fromAgentId, toAuctionHouseId, amount);
+                    } catch (Exception e) {
+                        System.err.println("Failed to transfer funds: " + e.getMessage());
+                    }
                 }
                 activeBids.remove(itemId);
                 agent.sendGuiMessage("You won item " + itemId + " from auction " +
@@ -191,6 +296,15 @@ public class AuctionManager implements Runnable {
                 agent.sendGuiMessage("Item " + itemId + " from auction " + auctionId + " sold!");
             }
 
+            case "ITEM_REMOVED" -> {
+                String itemId = parts[1];
+                items.removeIf(item -> item.itemId.equals(itemId));
+                activeBids.remove(itemId);
+                if (onItemUpdate != null) {
+                    javafx.application.Platform.runLater(onItemUpdate);
+                }
+            }
+
             default -> {
                 System.out.println("Unknown message: " + message);
             }
@@ -215,7 +329,7 @@ public class AuctionManager implements Runnable {
      * @return the client that handles communication between this auction house
      * and agent.
      */
-    public SocketAuctionClient getClient() {
+    public AuctionClient getClient() {
         return auctionClient;
     }
     
@@ -0,0 +1,158 @@
+package auctionhouse;
+
+import shared.Message;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admin command set for operating an auction house without a GUI.
+ * A connection that opens with {@code ADMIN <token>} instead of {@code AGENT <id>}
+ * may then send these commands; each one returns its reply lines.
+ * <ul>
+ *     <li>{@code STATUS} – one line of {@code key=value} counters</li>
+ *     <li>{@code STATS} – gauges and latency histograms, as {@code key=value} fields</li>
+ *     <li>{@code AGENTS} – one {@code AGENT_INFO <id> <lagMs>} line per agent</li>
+ *     <li>{@code ITEMS} – one {@code ITEM_STATUS} line per catalog item</li>
+ *     <li>{@code SOLD [FROM ms] [TO ms] [WINNER id] [MIN price] [MAX price] [LIMIT n]} –
+ *     up to {@code n} (default 100) archived sales, newest first, as
+ *     {@code SALE <itemId> <winnerId> <amount> <soldAtMs>} lines</li>
+ *     <li>{@code SHUTDOWN} – shuts the house down if no auction has a bid</li>
+ * </ul>
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class AdminCommands {
+
+    private final AuctionHouse house;
+
+    /**
+     * @param house the auction house being administered
+     */
+    public AdminCommands(AuctionHouse house) {
+        this.house = house;
+    }
+
+    /**
+     * Runs one admin command.
+     *
+     * @param tokens the decoded command line
+     * @return the reply lines, in order
+     */
+    public List<String> execute(String[] tokens) {
+        List<String> reply = new ArrayList<>();
+        switch (tokens[0].toUpperCase()) {
+            case "STATUS" -> reply.add(status());
+            case "STATS" -> reply.add(Message.encode("STATS", house.getMetrics().snapshot(house)));
+            case "AGENTS" -> {
+                for (Integer agentId : house.getAgentIds()) {
+                    AgentHandler handler = house.getAgentHandler(agentId);
+                    long lag = handler == null ? 0 : handler.getLagMillis();
+                    reply.add(Message.encode("AGENT_INFO", String.valueOf(agentId), String.valueOf(lag)));
+                }
+                reply.add(Message.encode("END_AGENTS"));
+            }
+            case "ITEMS" -> {
+                for (AuctionItem item : house.getItemManager().getAllItems()) {
+                    reply.add(Message.encode(
+                            "ITEM_STATUS",
+                            String.valueOf(item.getItemId()),
+                            "\"" + item.getDescription() + "\"",
+                            String.valueOf(item.getMinimumBid()),
+                            String.valueOf(item.getCurrentBid()),
+                            String.valueOf(item.getCurrentBidderId()),
+                            item.isSold() ? "SOLD" : item.isActive() ? "ACTIVE" : "WAITING"
+                    ));
+                }
+                reply.add(Message.encode("END_ITEMS"));
+            }
+            case "SOLD" -> {
+                try {
+                    reply.addAll(querySold(tokens));
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    reply.add(Message.encode("ERROR", "Usage: SOLD [FROM ms] [TO ms] [WINNER id] [MIN price] [MAX price] [LIMIT n]"));
+                }
+            }
+            case "SHUTDOWN" -> {
+                if (house.hasActiveAuctions()) {
+                    reply.add(Message.encode("ERROR", "Active auctions in progress"));
+                } else {
+                    reply.add(Message.encode("OK"));
+                    house.shutdown();
+                }
+            }
+            default -> reply.add(Message.encode("ERROR", "Unknown admin command"));
+        }
+        return reply;
+    }
+
+    /**
+     * Runs a SOLD query against the house's sold archive.
+     *
+     * @param tokens {@code SOLD} followed by optional filter name/value pairs
+     * @return the matching SALE lines followed by END_SALES
+     */
+    private List<String> querySold(String[] tokens) {
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        int winner = -1;
+        int min = Integer.MIN_VALUE;
+        int max = Integer.MAX_VALUE;
+        int limit = 100;
+
+        for (int i = 1; i < tokens.length; i += 2) {
+            String value = tokens[i + 1];
+            switch (tokens[i].toUpperCase()) {
+                case "FROM" -> from = Long.parseLong(value);
+                case "TO" -> to = Long.parseLong(value);
+                case "WINNER" -> winner = Integer.parseInt(value);
+                case "MIN" -> min = Integer.parseInt(value);
+                case "MAX" -> max = Integer.parseInt(value);
+                case "LIMIT" -> limit = Integer.parseInt(value);
+                default -> throw new NumberFormatException("Unknown filter " + tokens[i]);
+            }
+        }
+
+        List<String> reply = new ArrayList<>();
+        for (SoldArchive.Sale sale : house.getItemManager().getSoldArchive()
+                .query(from, to, winner, min, max, limit)) {
+            reply.add(Message.encode(
+                    "SALE",
+                    String.valueOf(sale.itemId()),
+                    String.valueOf(sale.winnerId()),
+                    String.valueOf(sale.amount()),
+                    String.valueOf(sale.soldAt())
+            ));
+        }
+        reply.add(Message.encode("END_SALES"));
+        return reply;
+    }
+
+    /**
+     * Builds the STATUS line, also used for periodic status logging.
+     *
+     * @return {@code STATUS} followed by {@code key=value} counters
+     */
+    public String status() {
+        ItemManager itemManager = house.getItemManager();
+        Runtime runtime = Runtime.getRuntime();
+        return Message.encode(
+                "STATUS",
+                "account=" + house.getAccountId(),
+                "port=" + house.getPort(),
+                "agents=" + house.getAgentIds().size(),
+                "active=" + itemManager.getActiveCount(),
+                "pending=" + itemManager.getPendingCount(),
+                "sold=" + itemManager.getSoldCount(),
+                "unsettled=" + house.getSettlementQueue().size(),
+                "rateLimitedBids=" + house.getRateLimitedBidCount(),
+                "overloadedBids=" + house.getOverloadedBidCount(),
+                "heapUsedKb=" + (runtime.totalMemory() - runtime.freeMemory()) / 1024,
+                "uptimeMs=" + ManagementFactory.getRuntimeMXBean().getUptime()
+        );
+    }
+}
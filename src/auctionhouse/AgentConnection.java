@@ -0,0 +1,40 @@
+package auctionhouse;
+
+/**
+ * Outbound side of a connection to one agent.
+ * Lets {@link AgentHandler} run the same protocol logic over a blocking
+ * socket or a selector-driven channel. Sends never block the caller; lines
+ * are queued in an {@link OutboundBuffer} and written by the connection.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+interface AgentConnection {
+
+    /**
+     * Queues one protocol line for the agent.
+     *
+     * @param line        the message, without a line terminator
+     * @param coalesceKey a positive item ID if a newer update for the same item may
+     *                    replace this line while the agent is congested, otherwise 0
+     * @return false if the agent has fallen too far behind and must be disconnected
+     */
+    boolean send(String line, int coalesceKey);
+
+    /**
+     * Closes the connection once the lines already queued have been written.
+     */
+    void close();
+
+    /**
+     * Closes the connection immediately, discarding queued lines.
+     */
+    void closeNow();
+
+    /**
+     * @return how long the oldest unwritten line has been queued, in milliseconds
+     */
+    long getLagMillis();
+}
@@ -1,14 +1,24 @@
 package auctionhouse;
 
 import shared.BankClient;
+import shared.LineCompression;
+import shared.ListQuery;
 import shared.Message;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Handles communication with a single connected agent.
@@ -25,9 +35,16 @@ public class AgentHandler implements Runnable {
     private final ItemManager itemManager;
     private final BankClient bankClient;
     private final AuctionHouse auctionHouse;
-    private BufferedReader in;
-    private PrintWriter out;
+    private AgentConnection connection;
     private int agentId = -1;
+    // Set before the handler is registered, so broadcasting threads see it
+    private boolean versioned;
+    private boolean compress;
+    private static final int MAX_BATCH_BIDS = 100;
+    private static final long NO_SEQUENCE = Long.MIN_VALUE;
+    private final AtomicBoolean dropped = new AtomicBoolean();
+    private AdminCommands admin;
+    private final Set<Integer> historySubscriptions = ConcurrentHashMap.newKeySet();
 
     /**
      * Constructs a new handler for a connected agent socket.
@@ -45,85 +62,370 @@ public class AgentHandler implements Runnable {
     }
 
     /**
-     * Main handler loop. Parses incoming agent messages and dispatches appropriate responses.
+     * Constructs a handler whose lines are delivered by an external I/O loop
+     * through {@link #handleLine(String)} rather than by {@link #run()}.
+     *
+     * @param connection   the outbound side of the agent connection
+     * @param itemManager  the item manager used to access auction items
+     * @param bankClient   the client used to communicate with the bank
+     * @param auctionHouse the auction house managing this handler
+     */
+    AgentHandler(AgentConnection connection, ItemManager itemManager, BankClient bankClient,
+                 AuctionHouse auctionHouse) {
+        this.socket = null;
+        this.connection = connection;
+        this.itemManager = itemManager;
+        this.bankClient = bankClient;
+        this.auctionHouse = auctionHouse;
+    }
+
+    /**
+     * Main handler loop for a blocking socket. Reads lines until the agent
+     * quits or disconnects and passes each to {@link #handleLine(String)}.
      */
     @Override
     public void run() {
         try {
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            out = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            connection = new StreamAgentConnection(socket, auctionHouse.newOutboundBuffer());
 
-            String init = in.readLine();
-            String[] initTokens = Message.decode(init);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!handleLine(line)) {
+                    return;
+                }
+            }
 
-            if (initTokens.length != 2 || !initTokens[0].equalsIgnoreCase("AGENT")) {
-                out.println(Message.encode("REJECTED", "Missing AGENT ID"));
+        } catch (IOException e) {
+            System.err.println("Agent communication error: " + e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Parses one incoming agent message and dispatches the appropriate response.
+     * The first line must be the {@code AGENT <id>} handshake.
+     *
+     * @param line the message line
+     * @return false if the connection has been closed and no more lines should be read
+     */
+    boolean handleLine(String line) {
+        String[] tokens = Message.decode(line);
+        if (agentId == -1 && admin == null) {
+            return handleHandshake(tokens);
+        }
+        if (tokens[0].isEmpty()) return true;
+        if (admin != null) {
+            return handleAdmin(tokens);
+        }
+
+        switch (tokens[0].toUpperCase()) {
+            case "LIST" -> handleList(tokens);
+            case "BID" -> handleBid(tokens);
+            case "BIDS" -> handleBatchBid(tokens);
+            case "SEARCH" -> handleSearch(tokens);
+            case "HISTORY" -> handleHistory(tokens);
+            case "QUIT" -> {
+                send(Message.encode("GOODBYE"));
                 close();
-                return;
+                return false;
             }
+            default -> send(Message.encode("ERROR",
+                    "Unknown command"));
+        }
+        return true;
+    }
 
-            try {
-                agentId = Integer.parseInt(initTokens[1]);
-            } catch (NumberFormatException e) {
-                out.println(Message.encode("REJECTED", "Invalid AGENT ID"));
+    /**
+     * Handles the {@code AGENT <id> [version [DEFLATE]]} line that opens every agent session, or
+     * the {@code ADMIN <token>} line that opens an admin session.
+     * <p>
+     * An agent that sends a version receives broadcasts and notifications
+     * prefixed with {@code V <version>}, and is first brought up to date from
+     * that version by {@link AuctionHouse#resume}. An agent that also asks for
+     * {@code DEFLATE} is sent large snapshot replies packed by
+     * {@link LineCompression}; the WELCOME reply names the compression agreed.
+     *
+     * @return false if the handshake was rejected and the connection closed
+     */
+    private boolean handleHandshake(String[] initTokens) {
+        if (initTokens.length == 2 && initTokens[0].equalsIgnoreCase("ADMIN")) {
+            if (!auctionHouse.isAdminToken(initTokens[1])) {
+                send(Message.encode("REJECTED", "Invalid admin token"));
                 close();
-                return;
+                return false;
             }
+            admin = new AdminCommands(auctionHouse);
+            send(Message.encode("WELCOME", "ADMIN"));
+            return true;
+        }
 
-            auctionHouse.registerAgent(agentId, this);
-            out.println(Message.encode("WELCOME", String.valueOf(agentId)));
+        if (initTokens.length < 2 || initTokens.length > 4
+                || !initTokens[0].equalsIgnoreCase("AGENT")) {
+            send(Message.encode("REJECTED", "Missing AGENT ID"));
+            close();
+            return false;
+        }
 
-            // Handle incoming commands
-            String line;
-            while ((line = in.readLine()) != null) {
-                String[] tokens = Message.decode(line);
-                if (tokens.length == 0) continue;
-
-                switch (tokens[0].toUpperCase()) {
-                    case "LIST" -> handleList();
-                    case "BID" -> handleBid(tokens);
-                    case "QUIT" -> {
-                        out.println(Message.encode("GOODBYE"));
-                        close();
-                        return;
-                    }
-                    default -> out.println(Message.encode("ERROR",
-                            "Unknown command"));
-                }
+        int id;
+        long since = -1;
+        try {
+            id = Integer.parseInt(initTokens[1]);
+            if (initTokens.length >= 3) {
+                since = Long.parseLong(initTokens[2]);
             }
+        } catch (NumberFormatException e) {
+            send(Message.encode("REJECTED", "Invalid AGENT ID"));
+            close();
+            return false;
+        }
 
-        } catch (IOException e) {
-            System.err.println("Agent communication error: " + e.getMessage());
-        } finally {
+        // WELCOME goes out before any broadcast can reach this connection
+        agentId = id;
+        versioned = since >= 0;
+        compress = initTokens.length == 4 && initTokens[3].equalsIgnoreCase(LineCompression.DEFLATE)
+                && auctionHouse.getCompressThreshold() > 0;
+        send(compress
+                ? Message.encode("WELCOME", String.valueOf(agentId), LineCompression.DEFLATE)
+                : Message.encode("WELCOME", String.valueOf(agentId)));
+        auctionHouse.registerAgent(agentId, this);
+        if (versioned) {
+            auctionHouse.resume(this, agentId, since);
+        }
+        return true;
+    }
+
+    /**
+     * Runs one command on an admin connection.
+     *
+     * @return false if the connection has been closed
+     */
+    private boolean handleAdmin(String[] tokens) {
+        if (tokens[0].equalsIgnoreCase("QUIT")) {
+            send(Message.encode("GOODBYE"));
             close();
+            return false;
+        }
+        for (String reply : admin.execute(tokens)) {
+            send(reply);
         }
+        return true;
     }
 
     /**
      * Handles a LIST command by sending active auction item details to the agent.
+     * A bare LIST returns every active item; with {@link ListQuery} arguments it
+     * returns one page and ends with a continuation cursor if more may follow.
      */
-    private void handleList() {
-        List<AuctionItem> activeItems = itemManager.getAvailableItems();
+    private void handleList(String[] tokens) {
+        List<String> reply = new ArrayList<>();
+        if (tokens.length == 1) {
+            for (AuctionItem item : itemManager.getAvailableItems()) {
+                reply.add(itemLine(item));
+            }
+            reply.add(Message.encode("END_ITEMS"));
+            sendSnapshot(reply);
+            return;
+        }
+
+        ItemManager.Page page;
+        try {
+            page = itemManager.getAvailableItems(ListQuery.decode(tokens));
+        } catch (IllegalArgumentException e) {
+            send(Message.encode("ERROR", "Invalid LIST arguments"));
+            send(Message.encode("END_ITEMS"));
+            return;
+        }
 
-        for (AuctionItem item : activeItems) {
-            out.println(Message.encode(
-                    "ITEM",
+        for (AuctionItem item : page.items()) {
+            reply.add(itemLine(item));
+        }
+        reply.add(page.cursor() == null
+                ? Message.encode("END_ITEMS")
+                : Message.encode("END_ITEMS", page.cursor()));
+        sendSnapshot(reply);
+    }
+
+    /**
+     * Handles a SEARCH command: {@code SEARCH <limit> <terms...>}.
+     * Replies with ranked RESULT lines for active and pending items followed by END_RESULTS.
+     */
+    private void handleSearch(String[] tokens) {
+        int limit;
+        try {
+            limit = tokens.length < 3 ? 0 : Integer.parseInt(tokens[1]);
+        } catch (NumberFormatException e) {
+            limit = 0;
+        }
+        if (limit <= 0) {
+            send(Message.encode("ERROR", "Invalid SEARCH format"));
+            send(Message.encode("END_RESULTS"));
+            return;
+        }
+
+        String query = String.join(" ", Arrays.copyOfRange(tokens, 2, tokens.length));
+        for (SearchIndex.Hit hit : itemManager.search(query, Math.min(limit, ListQuery.MAX_LIMIT))) {
+            AuctionItem item = hit.item();
+            send(Message.encode(
+                    "RESULT",
                     String.valueOf(item.getItemId()),
                     "\"" + item.getDescription() + "\"",
                     String.valueOf(item.getMinimumBid()),
-                    String.valueOf(item.getCurrentBid())
+                    String.valueOf(item.getCurrentBid()),
+                    item.isActive() ? "ACTIVE" : "PENDING",
+                    String.format(Locale.ROOT, "%.3f", hit.score())
             ));
         }
-        out.println(Message.encode("END_ITEMS"));
+        send(Message.encode("END_RESULTS"));
     }
 
     /**
-     * Handles a BID command from the agent.
-     * Validates bid amount, checks funds, updates item state, and notifies other bidders.
+     * @return a single ITEM line describing an active item
+     */
+    private static String itemLine(AuctionItem item) {
+        return Message.encode(
+                "ITEM",
+                String.valueOf(item.getItemId()),
+                "\"" + item.getDescription() + "\"",
+                String.valueOf(item.getMinimumBid()),
+                String.valueOf(item.getCurrentBid())
+        );
+    }
+
+    /**
+     * Handles a {@code BID <itemId> <amount> [sequence]} command from the agent.
+     * Rejects it at once if the agent is over its bid rate or the house has too
+     * many bids in flight; otherwise places the bid.
+     * <p>
+     * A bid carrying a sequence number is answered with {@code SEQ <sequence>}
+     * before its outcome. If the agent already sent that sequence number, the
+     * original outcome is replayed and the bid is not applied again.
      */
     private void handleBid(String[] tokens) {
+        long sequence = NO_SEQUENCE;
+        if (tokens.length > 3) {
+            try {
+                sequence = Long.parseLong(tokens[3]);
+            } catch (NumberFormatException e) {
+                send(Message.encode("REJECTED", "Invalid number format"));
+                return;
+            }
+            String previous = auctionHouse.getSequenceWindow(agentId).begin(sequence);
+            if (previous != null) {
+                send(Message.encode("SEQ", String.valueOf(sequence), previous));
+                return;
+            }
+        }
+
+        long received = System.nanoTime();
+        try {
+            if (!auctionHouse.tryAdmitBids(agentId, 1)) {
+                send(sequenced(sequence, Message.encode("REJECTED", "Rate limited")));
+                return;
+            }
+            try {
+                CallAuction callAuction = auctionHouse.getCallAuction();
+                if (callAuction != null) {
+                    queueBid(tokens, callAuction, sequence);
+                } else {
+                    placeBid(tokens, sequence);
+                }
+            } finally {
+                auctionHouse.completeBids();
+            }
+        } finally {
+            auctionHouse.getMetrics().bidLatency().record(System.nanoTime() - received);
+            // No-op once an outcome was recorded; otherwise lets a retry run afresh
+            if (sequence != NO_SEQUENCE) {
+                auctionHouse.getSequenceWindow(agentId).abandon(sequence);
+            }
+        }
+    }
+
+    /**
+     * Sends the outcome of a bid. The outcome of a sequenced bid is remembered
+     * first, so a resent copy of the bid gets the same reply.
+     *
+     * @param sequence the client's sequence number, or {@link #NO_SEQUENCE}
+     * @param outcome  the ACCEPTED, QUEUED or REJECTED line
+     */
+    private void reply(long sequence, String outcome) {
+        if (sequence != NO_SEQUENCE) {
+            auctionHouse.getSequenceWindow(agentId).complete(sequence, outcome);
+        }
+        send(sequenced(sequence, outcome));
+    }
+
+    /**
+     * @return the line prefixed with {@code SEQ <sequence>} if the bid carried one
+     */
+    private static String sequenced(long sequence, String line) {
+        return sequence == NO_SEQUENCE ? line : Message.encode("SEQ", String.valueOf(sequence), line);
+    }
+
+    /**
+     * Handles {@code HISTORY <itemId>}, subscribing this agent to the item's bid
+     * history. The reply is one {@code HISTORY <itemId> [<time> <amount> <bidder>]...}
+     * snapshot, oldest first; each later accepted bid is sent as
+     * {@code PRICE <itemId> <time> <amount> <bidder>}. The stream ends when the
+     * item sells or leaves the house, or after {@code HISTORY <itemId> OFF}.
+     */
+    private void handleHistory(String[] tokens) {
+        if (tokens.length < 2) {
+            send(Message.encode("ERROR", "Invalid HISTORY format"));
+            return;
+        }
+
+        int itemId;
+        try {
+            itemId = Integer.parseInt(tokens[1]);
+        } catch (NumberFormatException e) {
+            send(Message.encode("ERROR", "Invalid number format"));
+            return;
+        }
+
+        PriceHistory history = itemManager.getPriceHistory();
+        if (tokens.length > 2 && tokens[2].equalsIgnoreCase("OFF")) {
+            history.unsubscribe(itemId, this);
+            historySubscriptions.remove(itemId);
+            return;
+        }
+
+        AuctionItem item = itemManager.getItem(itemId);
+        if (item == null) {
+            send(Message.encode("ERROR", "Item not found or already sold"));
+            return;
+        }
+
+        // Holding the item's monitor orders the snapshot before any PRICE line
+        synchronized (item) {
+            if (item.isSold() || !item.isActive()) {
+                send(Message.encode("ERROR", "Item not found or already sold"));
+                return;
+            }
+
+            List<long[]> entries = history.subscribe(itemId, this);
+            historySubscriptions.add(itemId);
+            String[] args = new String[1 + entries.size() * 3];
+            args[0] = String.valueOf(itemId);
+            for (int i = 0; i < entries.size(); i++) {
+                long[] entry = entries.get(i);
+                args[1 + 3 * i] = String.valueOf(entry[0]);
+                args[2 + 3 * i] = String.valueOf(entry[1]);
+                args[3 + 3 * i] = String.valueOf(entry[2]);
+            }
+            send(Message.encode("HISTORY", args));
+        }
+    }
+
+    /**
+     * Places an admitted bid.
+     * Validates bid amount, checks funds, updates item state, and notifies other bidders.
+     */
+    private void placeBid(String[] tokens, long sequence) {
         if (tokens.length < 3) {
-            out.println(Message.encode("REJECTED",
+            reply(sequence, Message.encode("REJECTED",
                     "Invalid BID format"));
             return;
         }
@@ -134,31 +436,40 @@ public class AgentHandler implements Runnable {
 
             AuctionItem item = itemManager.getItem(itemId);
             if (item == null || item.isSold()) {
-                out.println(Message.encode("REJECTED",
+                reply(sequence, Message.encode("REJECTED",
                         "Item not found or already sold"));
                 return;
             }
 
+            BidEvents.Received.emit(itemId, agentId, bidAmount);
+
+            long waitStart = System.nanoTime();
             synchronized (item) {
-                int minBid = item.getMinimumBid();
-                int currentBid = item.getCurrentBid();
-                int prevBidder = item.getCurrentBidderId();
+                auctionHouse.getMetrics().lockWait().record(System.nanoTime() - waitStart);
 
-                if (bidAmount < minBid || bidAmount <= currentBid) {
-                    out.println(Message.encode("REJECTED",
-                            "Bid too low"));
-                    return;
+                BidEvents.Validation validation = new BidEvents.Validation();
+                validation.begin();
+                int prevBidder = item.getCurrentBidderId();
+                String rejection = null;
+                if (!item.isActive()) {
+                    rejection = "Item not found or already sold";
+                } else if (bidAmount < item.getMinimumBid() || bidAmount <= item.getCurrentBid()) {
+                    rejection = "Bid too low";
+                } else if (agentId == prevBidder) {
+                    rejection = "You already have the highest bid ";
                 }
-
-                if (agentId == prevBidder) {
-                    out.println(Message.encode("REJECTED",
-                            "You already have the highest bid "));
+                validation.complete(itemId, agentId, bidAmount, rejection);
+                if (rejection != null) {
+                    reply(sequence, Message.encode("REJECTED", rejection));
                     return;
                 }
 
+                BidEvents.BankHold hold = new BidEvents.BankHold();
+                hold.begin();
                 boolean blocked = bankClient.blockFunds(agentId, bidAmount);
+                hold.complete(itemId, agentId, bidAmount, blocked);
                 if (!blocked) {
-                    out.println(Message.encode("REJECTED",
+                    reply(sequence, Message.encode("REJECTED",
                             "Insufficient funds"));
                     return;
                 }
@@ -168,72 +479,399 @@ public class AgentHandler implements Runnable {
                     int prevAmount = item.getCurrentBid();
                     bankClient.unblockFunds(prevBidder, prevAmount);
 
-                    AgentHandler prevHandler = auctionHouse.getAgentHandler(prevBidder);
-                    if (prevHandler != null) {
-                        prevHandler.sendOutbidNotification(item.getItemId());
-                    }
+                    auctionHouse.notifyOutbid(prevBidder, item.getItemId());
                 }
 
-                item.placeBid(agentId, bidAmount);
+                BidEvents.Commit commit = new BidEvents.Commit();
+                commit.begin();
+                itemManager.recordBid(item, agentId, bidAmount);
                 itemManager.startAuctionTimer(item, auctionHouse);
+                commit.complete(itemId, agentId, bidAmount);
                 auctionHouse.broadcastItemUpdate(item);
                 sendItemUpdate(item);
-                auctionHouse.triggerUpdate();
-                out.println(Message.encode("ACCEPTED",
+                reply(sequence, Message.encode("ACCEPTED",
                         String.valueOf(itemId)));
             }
 
         } catch (NumberFormatException e) {
-            out.println(Message.encode("REJECTED",
+            reply(sequence, Message.encode("REJECTED",
                     "Invalid number format"));
         }
     }
 
+    /**
+     * Queues an admitted bid for the next call-auction clearing round.
+     * Bids that could not win this round are rejected at once; the rest are
+     * answered with {@code QUEUED <itemId>} and resolved when the round clears.
+     */
+    private void queueBid(String[] tokens, CallAuction callAuction, long sequence) {
+        if (tokens.length < 3) {
+            reply(sequence, Message.encode("REJECTED",
+                    "Invalid BID format"));
+            return;
+        }
+
+        try {
+            int itemId = Integer.parseInt(tokens[1]);
+            int bidAmount = Integer.parseInt(tokens[2]);
+
+            AuctionItem item = itemManager.getItem(itemId);
+            String outcome = checkQueuedBid(item, bidAmount);
+            switch (outcome) {
+                case "QUEUED" -> {
+                    callAuction.submit(itemId, agentId, bidAmount);
+                    reply(sequence, Message.encode("QUEUED", String.valueOf(itemId)));
+                }
+                case "NOT_FOUND" -> reply(sequence, Message.encode("REJECTED",
+                        "Item not found or already sold"));
+                case "TOO_LOW" -> reply(sequence, Message.encode("REJECTED",
+                        "Bid too low"));
+                default -> reply(sequence, Message.encode("REJECTED",
+                        "You already have the highest bid "));
+            }
+
+        } catch (NumberFormatException e) {
+            reply(sequence, Message.encode("REJECTED",
+                    "Invalid number format"));
+        }
+    }
+
+    /**
+     * Checks a bid against the item's current state before it is queued.
+     *
+     * @return QUEUED, or the batch outcome code explaining why it cannot win
+     */
+    private String checkQueuedBid(AuctionItem item, int bidAmount) {
+        if (item == null || item.isSold() || !item.isActive()) {
+            return "NOT_FOUND";
+        } else if (bidAmount < item.getMinimumBid() || bidAmount <= item.getCurrentBid()) {
+            return "TOO_LOW";
+        } else if (item.getCurrentBidderId() == agentId) {
+            return "ALREADY_HIGHEST";
+        }
+        return "QUEUED";
+    }
+
+    /**
+     * Handles a batch bid: {@code BIDS <itemId> <amount> [<itemId> <amount> ...]}.
+     * All named items are locked in ID order and validated together, and the
+     * funds for every valid bid are blocked with a single bank call. If that
+     * hold fails, none of the bids are placed. Replies with one
+     * {@code RESULTS <itemId>:<outcome> ...} line in request order.
+     */
+    private void handleBatchBid(String[] tokens) {
+        int count = (tokens.length - 1) / 2;
+        if (count == 0 || tokens.length % 2 == 0 || count > MAX_BATCH_BIDS) {
+            send(Message.encode("REJECTED", "Invalid BIDS format"));
+            return;
+        }
+
+        int[] itemIds = new int[count];
+        int[] amounts = new int[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                itemIds[i] = Integer.parseInt(tokens[1 + 2 * i]);
+                amounts[i] = Integer.parseInt(tokens[2 + 2 * i]);
+            }
+        } catch (NumberFormatException e) {
+            send(Message.encode("REJECTED", "Invalid number format"));
+            return;
+        }
+
+        if (!auctionHouse.tryAdmitBids(agentId, count)) {
+            send(Message.encode("REJECTED", "Rate limited"));
+            return;
+        }
+        try {
+            CallAuction callAuction = auctionHouse.getCallAuction();
+            if (callAuction != null) {
+                queueBatch(itemIds, amounts, callAuction);
+            } else {
+                placeBatch(itemIds, amounts);
+            }
+        } finally {
+            auctionHouse.completeBids();
+        }
+    }
+
+    /**
+     * Places an admitted batch of bids and sends the RESULTS line.
+     */
+    private void placeBatch(int[] itemIds, int[] amounts) {
+        String[] outcomes = new String[itemIds.length];
+        Map<Integer, Integer> requestIndex = new HashMap<>();
+        List<AuctionItem> items = new ArrayList<>();
+
+        for (int i = 0; i < itemIds.length; i++) {
+            AuctionItem item = itemManager.getItem(itemIds[i]);
+            if (item == null || item.isSold()) {
+                outcomes[i] = "NOT_FOUND";
+            } else if (requestIndex.putIfAbsent(itemIds[i], i) != null) {
+                outcomes[i] = "DUPLICATE";
+            } else {
+                items.add(item);
+            }
+        }
+        items.sort(Comparator.comparingInt(AuctionItem::getItemId));
+
+        Map<Integer, Integer> refunds = new HashMap<>();
+        List<AuctionItem> placed = new ArrayList<>();
+        lockAndPlace(items, 0, requestIndex, amounts, outcomes, refunds, placed);
+
+        for (Map.Entry<Integer, Integer> refund : refunds.entrySet()) {
+            bankClient.unblockFunds(refund.getKey(), refund.getValue());
+        }
+        for (AuctionItem item : placed) {
+            auctionHouse.broadcastItemUpdate(item);
+        }
+
+        String[] results = new String[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++) {
+            results[i] = itemIds[i] + ":" + outcomes[i];
+        }
+        send(Message.encode("RESULTS", results));
+    }
+
+    /**
+     * Queues an admitted batch for the next call-auction clearing round and
+     * sends the RESULTS line, with {@code QUEUED} for each bid that was queued.
+     */
+    private void queueBatch(int[] itemIds, int[] amounts, CallAuction callAuction) {
+        String[] results = new String[itemIds.length];
+        Map<Integer, Integer> seen = new HashMap<>();
+
+        for (int i = 0; i < itemIds.length; i++) {
+            String outcome = seen.putIfAbsent(itemIds[i], i) != null
+                    ? "DUPLICATE"
+                    : checkQueuedBid(itemManager.getItem(itemIds[i]), amounts[i]);
+            if (outcome.equals("QUEUED")) {
+                callAuction.submit(itemIds[i], agentId, amounts[i]);
+            }
+            results[i] = itemIds[i] + ":" + outcome;
+        }
+        send(Message.encode("RESULTS", results));
+    }
+
+    /**
+     * Takes the monitor of each item in turn (the list is in ID order, so
+     * concurrent batches cannot deadlock), then validates and places the bids
+     * while all of them are held.
+     */
+    private void lockAndPlace(List<AuctionItem> items, int index, Map<Integer, Integer> requestIndex,
+                              int[] amounts, String[] outcomes, Map<Integer, Integer> refunds,
+                              List<AuctionItem> placed) {
+        if (index < items.size()) {
+            long waitStart = System.nanoTime();
+            synchronized (items.get(index)) {
+                auctionHouse.getMetrics().lockWait().record(System.nanoTime() - waitStart);
+                lockAndPlace(items, index + 1, requestIndex, amounts, outcomes, refunds, placed);
+            }
+            return;
+        }
+
+        List<AuctionItem> valid = new ArrayList<>();
+        long total = 0;
+        for (AuctionItem item : items) {
+            int i = requestIndex.get(item.getItemId());
+            if (item.isSold() || !item.isActive()) {
+                outcomes[i] = "NOT_FOUND";
+            } else if (amounts[i] < item.getMinimumBid() || amounts[i] <= item.getCurrentBid()) {
+                outcomes[i] = "TOO_LOW";
+            } else if (item.getCurrentBidderId() == agentId) {
+                outcomes[i] = "ALREADY_HIGHEST";
+            } else {
+                valid.add(item);
+                total = Math.addExact(total, (long) amounts[i]);
+            }
+        }
+        if (valid.isEmpty()) return;
+
+        // A total that does not fit a hold could never be covered
+        if (total <= 0 || total > Integer.MAX_VALUE
+                || !bankClient.blockFunds(agentId, (int) total)) {
+            for (AuctionItem item : valid) {
+                outcomes[requestIndex.get(item.getItemId())] = "INSUFFICIENT_FUNDS";
+            }
+            return;
+        }
+
+        for (AuctionItem item : valid) {
+            int i = requestIndex.get(item.getItemId());
+            int prevBidder = item.getCurrentBidderId();
+            if (prevBidder != -1) {
+                refunds.merge(prevBidder, item.getCurrentBid(), Integer::sum);
+                auctionHouse.notifyOutbid(prevBidder, item.getItemId());
+            }
+            itemManager.recordBid(item, agentId, amounts[i]);
+            itemManager.startAuctionTimer(item, auctionHouse);
+            outcomes[i] = "ACCEPTED";
+            placed.add(item);
+        }
+    }
+
     /**
      * Sends an updated item state to this agent.
      */
     public void sendItemUpdate(AuctionItem item) {
-        out.println(Message.encode(
+        send(itemUpdateLine(item), item.getItemId());
+    }
+
+    /**
+     * Sends a broadcast item update stamped with its change-log version.
+     *
+     * @param itemId the item, so a newer update can replace this one unsent
+     * @param line   the ITEM_UPDATED line as of that version
+     */
+    void sendItemUpdate(int itemId, String line, long version) {
+        send(stamp(line, version), itemId);
+    }
+
+    /**
+     * @return the ITEM_UPDATED line describing an item's current state
+     */
+    static String itemUpdateLine(AuctionItem item) {
+        return Message.encode(
                 "ITEM_UPDATED",
                 String.valueOf(item.getItemId()),
                 "\"" + item.getDescription() + "\"",
                 String.valueOf(item.getMinimumBid()),
                 String.valueOf(item.getCurrentBid())
-        ));
+        );
+    }
+
+    /**
+     * Sends one accepted bid on an item whose history this agent follows.
+     */
+    public void sendPriceUpdate(int itemId, long time, int amount, int bidderId) {
+        send(Message.encode("PRICE", String.valueOf(itemId), String.valueOf(time),
+                String.valueOf(amount), String.valueOf(bidderId)));
     }
 
     /**
      * Notifies this agent that an item has been sold.
      */
     public void sendItemSoldNotification(int itemId) {
-        out.println(Message.encode("ITEM_SOLD", String.valueOf(itemId)));
+        send(Message.encode("ITEM_SOLD", String.valueOf(itemId)));
+    }
+
+    /**
+     * Notifies this agent that a queued bid won its clearing round.
+     */
+    public void sendBidAccepted(int itemId) {
+        send(Message.encode("ACCEPTED", String.valueOf(itemId)));
+    }
+
+    /**
+     * Notifies this agent that a queued bid did not win its clearing round.
+     */
+    public void sendBidRejected(String reason) {
+        send(Message.encode("REJECTED", reason));
+    }
+
+    /**
+     * Sends a notification, personal or a broadcast ITEM_SOLD or ITEM_REMOVED,
+     * stamped with its change-log version.
+     */
+    void sendNotice(String line, long version) {
+        send(stamp(line, version));
     }
 
     /**
-     * Notifies this agent that they have been outbid.
+     * Sends a resume marker, SYNCED or RESYNC, that always carries the version.
      */
-    public void sendOutbidNotification(int itemId) {
-        out.println(Message.encode("OUTBID", String.valueOf(itemId)));
+    void sendVersioned(String marker, long version) {
+        send(Message.encode("V", String.valueOf(version), marker));
     }
 
     /**
-     * Notifies this agent that they have won the item.
+     * Sends a multi-line reply, such as a LIST or resume delta, as one packed
+     * line if this agent negotiated compression and the reply is large enough.
+     * Short replies and agents without compression get the plain lines.
      */
-    public void sendWinnerNotification(int amount, int itemId) {
-        out.println(Message.encode("WINNER", String.valueOf(amount),
-                String.valueOf(itemId)));
+    void sendSnapshot(List<String> lines) {
+        if (compress) {
+            int bytes = 0;
+            for (String line : lines) {
+                bytes += line.length() + 1;
+            }
+            if (bytes >= auctionHouse.getCompressThreshold()) {
+                send(LineCompression.pack(lines, auctionHouse.getCompressLevel()));
+                return;
+            }
+        }
+        for (String line : lines) {
+            send(line);
+        }
+    }
+
+    /**
+     * Prefixes a line with its version for agents that resume by version.
+     */
+    private String stamp(String line, long version) {
+        return versioned ? Message.encode("V", String.valueOf(version), line) : line;
+    }
+
+    /**
+     * @return how long the oldest unsent message to this agent has been waiting, in milliseconds
+     */
+    public long getLagMillis() {
+        return connection == null ? 0 : connection.getLagMillis();
+    }
+
+    /**
+     * Sends one line to this agent.
+     */
+    private void send(String line) {
+        send(line, 0);
+    }
+
+    /**
+     * Queues one line for this agent, disconnecting it if it has fallen too far behind.
+     *
+     * @param coalesceKey the item ID if a newer update may replace this line, otherwise 0
+     */
+    private void send(String line, int coalesceKey) {
+        if (!connection.send(line, coalesceKey)) {
+            dropSlowConsumer();
+        }
+    }
+
+    /**
+     * Disconnects an agent whose outbound queue overflowed and releases its winning bids.
+     */
+    private void dropSlowConsumer() {
+        if (!dropped.compareAndSet(false, true)) return;
+
+        System.err.printf("Disconnecting slow agent %d (lag %d ms)%n", agentId,
+                connection.getLagMillis());
+        connection.closeNow();
+        unsubscribeHistory();
+        auctionHouse.releaseAgent(agentId, this);
+    }
+
+    /**
+     * Ends every history subscription of this agent.
+     */
+    private void unsubscribeHistory() {
+        for (Integer itemId : historySubscriptions) {
+            itemManager.getPriceHistory().unsubscribe(itemId, this);
+        }
+        historySubscriptions.clear();
     }
 
     /**
      * Closes the connection to this agent.
      */
-    private void close() {
-        try {
-            if (socket != null && !socket.isClosed()) {
+    void close() {
+        unsubscribeHistory();
+        if (connection != null) {
+            connection.close();
+        } else if (socket != null) {
+            try {
                 socket.close();
+            } catch (IOException e) {
+                System.err.println("Error closing agent socket: " + e.getMessage());
             }
-        } catch (IOException e) {
-            System.err.println("Error closing agent socket: " + e.getMessage());
         }
     }
 }
@@ -1,16 +1,30 @@
 package auctionhouse;
 
 import shared.BankClient;
+import shared.Message;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 
 /**
  * Coordinates agent connections, bidding logic, and communication with the bank.
@@ -26,12 +40,46 @@ public class AuctionHouse {
     private final int serverPort;
     private ServerSocket serverSocket;
     private final ExecutorService agentThreadPool;
-    private volatile boolean running = false;
+    private final AtomicBoolean running = new AtomicBoolean();
     public int accountId;
     private final BankClient bankClient;
     private final ItemManager itemManager;
     private final Map<Integer, AgentHandler> agentHandlers = new ConcurrentHashMap<>();
     private Runnable onUpdateCallback;
+    private volatile IntConsumer onItemChanged;
+    private volatile Runnable onItemsChanged;
+    private int nioIoThreads = 0;
+    private int nioWorkerThreads = 0;
+    private ServerSocketChannel serverChannel;
+    private NioAgentServer nioServer;
+    private BackpressurePolicy backpressurePolicy = BackpressurePolicy.DROP_UPDATES;
+    private long outboundHighWatermark = 256 * 1024;
+    private long outboundLowWatermark = 64 * 1024;
+    private double bidsPerSecond = 20;
+    private int bidBurst = 40;
+    private Semaphore bidsInFlight = new Semaphore(256);
+    private final Map<Integer, TokenBucket> bidBuckets = new ConcurrentHashMap<>();
+    // Buckets full for this long are dropped; a new bucket starts full anyway
+    private static final long BUCKET_IDLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private final AtomicLong lastBucketSweep = new AtomicLong(System.nanoTime());
+    private final AtomicLong rateLimitedBids = new AtomicLong();
+    private final AtomicLong overloadedBids = new AtomicLong();
+    private static final int SEQUENCE_WINDOW = 64;
+    private final Map<Integer, SequenceWindow> sequenceWindows = new ConcurrentHashMap<>();
+    private long clearingIntervalMillis = 0;
+    private volatile CallAuction callAuction;
+    private PartitionWorker partition;
+    private volatile String adminToken;
+    private final HouseMetrics metrics = new HouseMetrics();
+    private long metricsIntervalSec = 0;
+    private ScheduledExecutorService metricsDumper;
+    private SettlementQueue settlementQueue;
+    private ChangeLog changeLog = new ChangeLog(1024);
+    // Versioned sends, queued in version order under the change log's monitor
+    private final Queue<Runnable> deliveries = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean delivering = new AtomicBoolean();
+    private int compressThreshold = 4096;
+    private int compressLevel = 1;
 
     /**
      * Constructs an AuctionHouse that manages agents, items, and bank interaction.
@@ -43,9 +91,10 @@ public class AuctionHouse {
      */
     public AuctionHouse(int port, BankClient bankClient, ItemManager itemManager) {
         this.serverPort = port;
-        this.bankClient = bankClient;
+        this.bankClient = new TimedBankClient(bankClient, metrics);
         this.itemManager = itemManager;
         this.agentThreadPool = Executors.newCachedThreadPool();
+        this.settlementQueue = new SettlementQueue(this, this.bankClient, 250, 64);
     }
 
     /**
@@ -54,38 +103,359 @@ public class AuctionHouse {
      */
     public void start() {
         try {
-            serverSocket = new ServerSocket(serverPort);
-            running = true;
-
-            String localHost = getExternalIpAddress();
-            int localPort = serverSocket.getLocalPort();
-
-            accountId = bankClient.registerAuctionHouse(localHost, localPort);
+            int localPort;
+            if (nioIoThreads > 0) {
+                serverChannel = ServerSocketChannel.open();
+                serverChannel.bind(new InetSocketAddress(serverPort));
+                localPort = serverChannel.socket().getLocalPort();
+            } else {
+                serverSocket = new ServerSocket(serverPort);
+                localPort = serverSocket.getLocalPort();
+            }
+            running.set(true);
 
-            if (accountId < 0) {
-                System.err.println("Failed to register with bank. Aborting startup.");
+            if (!startServices(getExternalIpAddress(), localPort)) {
                 return;
             }
 
-            listenForAgents();
+            if (serverChannel != null) {
+                nioServer = new NioAgentServer(this, itemManager, bankClient,
+                        nioIoThreads, nioWorkerThreads);
+                nioServer.serve(serverChannel);
+            } else {
+                listenForAgents();
+            }
 
         } catch (IOException e) {
             System.err.println("Failed to start auction house: " + e.getMessage());
         }
     }
 
+    /**
+     * Starts the auction house without opening a port, for agents in the same
+     * JVM that connect through {@link InProcessAuctionClient}. It registers
+     * with the bank under the given address, which socket agents told about
+     * it cannot reach. Returns once the house is running.
+     *
+     * @param host the host name to register with the bank
+     * @return false if registration failed
+     */
+    public boolean startInProcess(String host) {
+        running.set(true);
+        return startServices(host, serverPort);
+    }
+
+    /**
+     * Registers with the bank (or joins the partition) and starts the
+     * background tasks that do not depend on how agents connect.
+     *
+     * @return false if registration failed and startup was aborted
+     */
+    private boolean startServices(String localHost, int localPort) {
+        accountId = partition != null
+                ? partition.join(this, localHost, localPort)
+                : bankClient.registerAuctionHouse(localHost, localPort);
+
+        if (accountId < 0) {
+            System.err.println(partition != null
+                    ? "Failed to join partition router. Aborting startup."
+                    : "Failed to register with bank. Aborting startup.");
+            return false;
+        }
+        System.out.printf("Auction house %d accepting agents on port %d%n", accountId, localPort);
+
+        settlementQueue.start();
+
+        if (metricsIntervalSec > 0) {
+            metricsDumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+            metricsDumper.scheduleAtFixedRate(() -> System.out.println(Message.encode(
+                            "METRICS", "time=" + System.currentTimeMillis(), metrics.snapshot(this))),
+                    metricsIntervalSec, metricsIntervalSec, TimeUnit.SECONDS);
+        }
+
+        if (clearingIntervalMillis > 0) {
+            callAuction = new CallAuction(this, itemManager, bankClient,
+                    clearingIntervalMillis);
+            callAuction.start();
+        }
+        return true;
+    }
+
+    /**
+     * Serves agents from a selector-based event loop instead of one blocking
+     * thread per agent. Must be called before {@link #start()}.
+     *
+     * @param ioThreads     the number of selector threads
+     * @param workerThreads the number of threads running agent commands
+     */
+    public void useNonBlockingServer(int ioThreads, int workerThreads) {
+        this.nioIoThreads = ioThreads;
+        this.nioWorkerThreads = workerThreads;
+    }
+
+    /**
+     * Applies the {@code auction.*} options documented in the README: backpressure,
+     * bid limits, the NIO server, call-auction clearing, admin access, metric dumps, bid history,
+     * the sold archive, settlement batching, the resume change log and snapshot compression.
+     * Must be called before {@link #start()}.
+     *
+     * @param properties the options, usually the JVM system properties
+     * @throws IllegalArgumentException if an option has an invalid value
+     */
+    public void configure(Properties properties) {
+        setBackpressure(
+                BackpressurePolicy.valueOf(properties.getProperty("auction.backpressure.policy",
+                        BackpressurePolicy.DROP_UPDATES.name())),
+                Long.parseLong(properties.getProperty("auction.backpressure.highWatermark",
+                        String.valueOf(256 * 1024))),
+                Long.parseLong(properties.getProperty("auction.backpressure.lowWatermark",
+                        String.valueOf(64 * 1024))));
+
+        setBidLimits(
+                Double.parseDouble(properties.getProperty("auction.bids.perSecond", "20")),
+                Integer.parseInt(properties.getProperty("auction.bids.burst", "40")),
+                Integer.parseInt(properties.getProperty("auction.bids.maxInFlight", "256")));
+
+        int ioThreads = Integer.parseInt(properties.getProperty("auction.nio.ioThreads", "0"));
+        if (ioThreads > 0) {
+            useNonBlockingServer(ioThreads,
+                    Integer.parseInt(properties.getProperty("auction.nio.workerThreads", "16")));
+        }
+
+        long clearingInterval = Long.parseLong(properties.getProperty("auction.clearing.intervalMs", "0"));
+        if (clearingInterval > 0) {
+            useCallAuction(clearingInterval);
+        }
+
+        setAdminToken(properties.getProperty("auction.admin.token"));
+
+        metricsIntervalSec = Long.parseLong(properties.getProperty("auction.metrics.intervalSec", "0"));
+
+        itemManager.setPriceHistory(new PriceHistory(
+                Integer.parseInt(properties.getProperty("auction.history.size", "32"))));
+
+        String archivePath = properties.getProperty("auction.archive.path");
+        itemManager.setSoldArchive(new SoldArchive(
+                archivePath == null || archivePath.isEmpty() ? null : Path.of(archivePath),
+                Integer.parseInt(properties.getProperty("auction.archive.recentSales", "256"))));
+
+        settlementQueue = new SettlementQueue(this, bankClient,
+                Long.parseLong(properties.getProperty("auction.settlement.intervalMs", "250")),
+                Integer.parseInt(properties.getProperty("auction.settlement.batchSize", "64")));
+
+        changeLog = new ChangeLog(Integer.parseInt(properties.getProperty("auction.changelog.size", "1024")));
+
+        setCompression(
+                Integer.parseInt(properties.getProperty("auction.compress.threshold", "4096")),
+                Integer.parseInt(properties.getProperty("auction.compress.level", "1")));
+    }
+
+    /**
+     * Sets when snapshot replies are deflated for agents that asked for it.
+     *
+     * @param threshold the smallest reply, in bytes, that is compressed; 0 or less refuses compression
+     * @param level     the deflate level, 1 (fastest) to 9 (smallest)
+     * @throws IllegalArgumentException if the level is out of range
+     */
+    public void setCompression(int threshold, int level) {
+        if (level < 1 || level > 9) {
+            throw new IllegalArgumentException("Compression level must be 1 to 9");
+        }
+        this.compressThreshold = threshold;
+        this.compressLevel = level;
+    }
+
+    /**
+     * @return the smallest snapshot reply, in bytes, that is compressed, or 0 or less if compression is refused
+     */
+    public int getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    /**
+     * @return the deflate level used for snapshot replies
+     */
+    public int getCompressLevel() {
+        return compressLevel;
+    }
+
+    /**
+     * Enables the admin command set for connections that open with
+     * {@code ADMIN <token>} instead of {@code AGENT <id>}.
+     *
+     * @param token the shared secret, or null to disable admin connections
+     */
+    public void setAdminToken(String token) {
+        this.adminToken = token == null || token.isEmpty() ? null : token;
+    }
+
+    /**
+     * Checks an admin token against the configured one in constant time.
+     *
+     * @param token the token presented by a connection
+     * @return true if admin connections are enabled and the token matches
+     */
+    public boolean isAdminToken(String token) {
+        String expected = adminToken;
+        return expected != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Runs this house as one partition of a logical auction house. Instead of
+     * registering with the bank, it joins the partition router on startup and
+     * auctions only the items the router assigns to it.
+     * Must be called before {@link #start()}.
+     *
+     * @param partition the link to the partition router
+     */
+    public void usePartition(PartitionWorker partition) {
+        this.partition = partition;
+    }
+
+    /**
+     * Switches from resolving each bid on arrival to periodic call-auction
+     * clearing: bids are queued and each item is cleared once per interval.
+     * Must be called before {@link #start()}.
+     *
+     * @param intervalMillis how long bids are collected before each clearing round
+     */
+    public void useCallAuction(long intervalMillis) {
+        this.clearingIntervalMillis = intervalMillis;
+    }
+
+    /**
+     * @return the call-auction order book, or null if bids are resolved on arrival
+     */
+    public CallAuction getCallAuction() {
+        return callAuction;
+    }
+
+    /**
+     * @return the queue of sold items waiting to be settled with the bank
+     */
+    public SettlementQueue getSettlementQueue() {
+        return settlementQueue;
+    }
+
+    /**
+     * Configures how agents that stop reading are treated.
+     *
+     * @param policy        what to do once an agent's outbound queue passes the high watermark
+     * @param highWatermark queued bytes at which an agent counts as congested
+     * @param lowWatermark  queued bytes at which a congested agent recovers
+     */
+    public void setBackpressure(BackpressurePolicy policy, long highWatermark, long lowWatermark) {
+        this.backpressurePolicy = policy;
+        this.outboundHighWatermark = highWatermark;
+        this.outboundLowWatermark = lowWatermark;
+    }
+
+    /**
+     * Configures bid admission control. Must be called before {@link #start()}.
+     *
+     * @param perSecond   bids each agent may place per second, sustained
+     * @param burst       bids an idle agent may place at once
+     * @param maxInFlight bids the house processes concurrently across all agents
+     */
+    public void setBidLimits(double perSecond, int burst, int maxInFlight) {
+        this.bidsPerSecond = perSecond;
+        this.bidBurst = burst;
+        this.bidsInFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Admits bids from an agent if both its own token bucket and the global
+     * in-flight cap allow them. Every admitted call must be paired with
+     * {@link #completeBids()}. Buckets are kept by agent ID across reconnects,
+     * so reconnecting does not refill one; about once a minute, buckets that
+     * have been full for a minute are dropped.
+     *
+     * @param agentId the bidding agent
+     * @param count   the number of bids to admit
+     * @return true if the bids may proceed; false if they should be rejected as rate limited
+     */
+    public boolean tryAdmitBids(int agentId, int count) {
+        sweepBidBuckets();
+        TokenBucket bucket = bidBuckets.computeIfAbsent(agentId,
+                id -> new TokenBucket(bidsPerSecond, bidBurst));
+        if (!bucket.tryAcquire(count)) {
+            rateLimitedBids.addAndGet(count);
+            return false;
+        }
+        if (!bidsInFlight.tryAcquire()) {
+            // Refused for the house's load, not the agent's rate
+            bucket.refund(count);
+            overloadedBids.addAndGet(count);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops idle token buckets, at most once per idle period and on one thread.
+     */
+    private void sweepBidBuckets() {
+        long now = System.nanoTime();
+        long last = lastBucketSweep.get();
+        if (now - last < BUCKET_IDLE_NANOS || !lastBucketSweep.compareAndSet(last, now)) {
+            return;
+        }
+        bidBuckets.values().removeIf(bucket -> bucket.isIdle(BUCKET_IDLE_NANOS));
+    }
+
+    /**
+     * Releases the in-flight slot taken by {@link #tryAdmitBids(int, int)}.
+     */
+    public void completeBids() {
+        bidsInFlight.release();
+    }
+
+    /**
+     * @return bids rejected because an agent exceeded its own rate
+     */
+    public long getRateLimitedBidCount() {
+        return rateLimitedBids.get();
+    }
+
+    /**
+     * @return bids rejected because too many bids were already in flight
+     */
+    public long getOverloadedBidCount() {
+        return overloadedBids.get();
+    }
+
+    /**
+     * @return the bank client handlers use, timed into this house's metrics
+     */
+    BankClient getBankClient() {
+        return bankClient;
+    }
+
+    /**
+     * @return a new outbound queue configured with this house's backpressure settings
+     */
+    OutboundBuffer newOutboundBuffer() {
+        return new OutboundBuffer(backpressurePolicy, outboundHighWatermark, outboundLowWatermark,
+                metrics.broadcastLag());
+    }
+
     /**
      * Accepts and handles incoming agent connections
      */
     private void listenForAgents() {
-        while (running) {
+        while (running.get()) {
             try {
                 Socket agentSocket = serverSocket.accept();
                 AgentHandler handler = new AgentHandler(agentSocket, itemManager,
                         bankClient, this);
                 agentThreadPool.submit(handler);
             } catch (IOException e) {
-                if (running) {
+                if (running.get()) {
                     System.err.println("Error accepting agent connection: " + e.getMessage());
                 }
                 break;
@@ -97,27 +467,46 @@ public class AuctionHouse {
      * Gracefully shuts down the auction house.
      */
     public void shutdown() {
-        if (hasActiveAuctions()) {
+        // Only the caller that flips the flag shuts down, even if several race here
+        if (hasActiveAuctions() || !running.compareAndSet(true, false)) {
             return;
         }
 
-        running = false;
+        // Collect what sold items are owed before the house account goes away
+        settlementQueue.shutdown();
 
-        try {
-            bankClient.deregister(accountId);
-        } catch (Exception e) {
-            System.err.println("Failed to deregister auction house: " + e.getMessage());
+        if (partition != null) {
+            partition.close();
+        } else {
+            try {
+                bankClient.deregister(accountId);
+            } catch (Exception e) {
+                System.err.println("Failed to deregister auction house: " + e.getMessage());
+            }
         }
 
         try {
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
             }
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
+            }
         } catch (IOException e) {
             System.err.println("Error closing server socket: " + e.getMessage());
         }
 
+        if (callAuction != null) {
+            callAuction.shutdown();
+        }
+        if (nioServer != null) {
+            nioServer.shutdown();
+        }
+        if (metricsDumper != null) {
+            metricsDumper.shutdownNow();
+        }
         agentThreadPool.shutdownNow();
+        itemManager.getSoldArchive().close();
     }
 
     /**
@@ -132,6 +521,154 @@ public class AuctionHouse {
         triggerUpdate();
     }
 
+    /**
+     * Forgets a disconnected agent and releases the bids it is currently winning,
+     * unblocking its funds and reopening those items to other bidders.
+     * The bank calls run on the agent thread pool, off the caller's thread.
+     *
+     * @param agentId the ID of the agent
+     * @param handler the handler being dropped
+     */
+    public void releaseAgent(int agentId, AgentHandler handler) {
+        agentHandlers.remove(agentId, handler);
+        agentThreadPool.submit(() -> {
+            Map<AuctionItem, Integer> released = itemManager.releaseBidsOf(agentId);
+            for (Map.Entry<AuctionItem, Integer> entry : released.entrySet()) {
+                bankClient.unblockFunds(agentId, entry.getValue());
+                broadcastItemUpdate(entry.getKey());
+            }
+            triggerUpdate();
+        });
+    }
+
+    /**
+     * @return the latency histograms recorded by this house
+     */
+    public HouseMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the window of recent sequenced bid outcomes for an agent. It is
+     * kept across reconnects, so a bid resent on a new connection is still
+     * recognized as a duplicate.
+     *
+     * @param agentId the ID of the agent
+     * @return the agent's window, created on first use
+     */
+    SequenceWindow getSequenceWindow(int agentId) {
+        return sequenceWindows.computeIfAbsent(agentId, id -> new SequenceWindow(SEQUENCE_WINDOW));
+    }
+
+    /**
+     * Brings a reconnecting agent up to date from the last version it saw:
+     * the current state of every item changed since then, or a {@code RESYNC}
+     * if those changes are no longer kept, followed by the OUTBID and WINNER
+     * notifications it missed. A delta ends with {@code SYNCED}; both markers
+     * carry the current version. An agent starting with version 0 has nothing
+     * to catch up on and only learns the current version.
+     * <p>
+     * Items that moved to another partition since then are sent as
+     * {@code ITEM_REMOVED}, so the agent drops them without taking them for sales.
+     * <p>
+     * The agent must already be registered, so no change made while the delta
+     * is being built is lost. The delta is queued behind the deliveries of
+     * every earlier version, so none of them can reach the agent after it.
+     *
+     * @param handler the agent's new connection
+     * @param agentId the agent
+     * @param since   the last version the agent saw, or 0
+     */
+    void resume(AgentHandler handler, int agentId, long since) {
+        synchronized (changeLog) {
+            long current = changeLog.version();
+            if (since == 0) {
+                deliveries.add(() -> handler.sendVersioned("SYNCED", current));
+            } else {
+                List<String> delta = new ArrayList<>();
+                List<ChangeLog.Change> changed = changeLog.changedSince(since);
+                if (changed != null) {
+                    for (ChangeLog.Change change : changed) {
+                        String itemId = String.valueOf(change.itemId());
+                        AuctionItem item = itemManager.getItem(change.itemId());
+                        if (change.removed()) {
+                            delta.add(Message.encode("ITEM_REMOVED", itemId));
+                        } else if (item != null && item.isActive()) {
+                            delta.add(AgentHandler.itemUpdateLine(item));
+                        } else {
+                            delta.add(Message.encode("ITEM_SOLD", itemId));
+                        }
+                    }
+                }
+                for (ChangeLog.Notice notice : changeLog.noticesSince(agentId, since)) {
+                    delta.add(notice.line());
+                }
+                delta.add(Message.encode("V", String.valueOf(current), changed == null ? "RESYNC" : "SYNCED"));
+                deliveries.add(() -> handler.sendSnapshot(delta));
+            }
+        }
+        deliver();
+    }
+
+    /**
+     * Tells an agent it has been outbid on an item.
+     *
+     * @param agentId the agent whose bid was beaten
+     * @param itemId  the item
+     */
+    public void notifyOutbid(int agentId, int itemId) {
+        notifyAgent(agentId, Message.encode("OUTBID", String.valueOf(itemId)));
+    }
+
+    /**
+     * Tells an agent it has won an item. The {@code HOUSE} flag tells the agent
+     * the house settles the payment, so it must not transfer the funds itself.
+     *
+     * @param agentId the winning agent
+     * @param amount  the winning bid
+     * @param itemId  the item
+     */
+    public void notifyWinner(int agentId, int amount, int itemId) {
+        notifyAgent(agentId, Message.encode("WINNER", String.valueOf(amount),
+                String.valueOf(itemId), "HOUSE"));
+    }
+
+    /**
+     * Records a personal notification in the change log and sends it if the
+     * agent is connected; otherwise it is replayed when the agent resumes.
+     */
+    private void notifyAgent(int agentId, String line) {
+        synchronized (changeLog) {
+            long version = changeLog.notice(agentId, line);
+            deliveries.add(() -> {
+                AgentHandler handler = agentHandlers.get(agentId);
+                if (handler != null) {
+                    handler.sendNotice(line, version);
+                }
+            });
+        }
+        deliver();
+    }
+
+    /**
+     * Runs queued deliveries in version order until none are left. Only one
+     * thread delivers at a time; a caller that finds another thread delivering
+     * returns at once, and that thread sends its lines too. No lock is held
+     * while sending, so recording a change never waits on a fan-out.
+     */
+    private void deliver() {
+        while (!deliveries.isEmpty() && delivering.compareAndSet(false, true)) {
+            try {
+                Runnable delivery;
+                while ((delivery = deliveries.poll()) != null) {
+                    delivery.run();
+                }
+            } finally {
+                delivering.set(false);
+            }
+        }
+    }
+
     /**
      * Retrieves the handler associated with the given agent ID.
      *
@@ -190,42 +727,69 @@ public class AuctionHouse {
 
     /**
      * Broadcasts the updated state of an item to all connected agents.
-     * Each update is sent on a separate thread to avoid blocking.
+     * Sends only queue the line for each agent, so a slow agent cannot block the caller,
+     * and the change is versioned so a reconnecting agent can catch up on it.
      *
      * @param item the item whose update should be broadcast
      */
     public void broadcastItemUpdate(AuctionItem item) {
-        for (Map.Entry<Integer, AgentHandler> entry : agentHandlers.entrySet()) {
-            AgentHandler handler = entry.getValue();
-            new Thread(() -> {
-                try {
-                    handler.sendItemUpdate(item);
-                } catch (Exception e) {
-                    System.err.println("Failed to send item update to Agent " +
-                            entry.getKey() + ": " + e.getMessage());
+        BidEvents.Broadcast event = new BidEvents.Broadcast();
+        event.begin();
+        int itemId = item.getItemId();
+        synchronized (changeLog) {
+            long version = changeLog.record(itemId);
+            String line = AgentHandler.itemUpdateLine(item);
+            deliveries.add(() -> {
+                for (AgentHandler handler : agentHandlers.values()) {
+                    handler.sendItemUpdate(itemId, line, version);
                 }
-            }).start();
+            });
         }
+        deliver();
+        event.complete(itemId, item.getCurrentBid(), agentHandlers.size());
+        notifyItemChanged(itemId);
     }
 
     /**
      * Notifies all connected agents that a specific item has been sold.
-     * Each notification is sent on a separate thread to avoid blocking.
+     * Sends only queue the line for each agent, so a slow agent cannot block the caller.
      *
      * @param itemId the ID of the item that was sold
      */
     public void broadcastItemSold(int itemId) {
-        for (Map.Entry<Integer, AgentHandler> entry : agentHandlers.entrySet()) {
-            AgentHandler handler = entry.getValue();
-            new Thread(() -> {
-                try {
-                    handler.sendItemSoldNotification(itemId);
-                } catch (Exception e) {
-                    System.err.println("Failed to send ITEM_SOLD to Agent " +
-                            entry.getKey() + ": " + e.getMessage());
-                }
-            }).start();
+        synchronized (changeLog) {
+            long version = changeLog.record(itemId);
+            broadcastNotice(Message.encode("ITEM_SOLD", String.valueOf(itemId)), version);
+        }
+        deliver();
+        notifyItemChanged(itemId);
+    }
+
+    /**
+     * Notifies all connected agents that an item has left this house unsold,
+     * because a partition router moved it to another worker.
+     *
+     * @param itemId the ID of the item removed
+     */
+    public void broadcastItemRemoved(int itemId) {
+        synchronized (changeLog) {
+            long version = changeLog.recordRemoval(itemId);
+            broadcastNotice(Message.encode("ITEM_REMOVED", String.valueOf(itemId)), version);
         }
+        deliver();
+        notifyItemChanged(itemId);
+    }
+
+    /**
+     * Queues one versioned line for every connected agent. Called with the
+     * change log's monitor held.
+     */
+    private void broadcastNotice(String line, long version) {
+        deliveries.add(() -> {
+            for (AgentHandler handler : agentHandlers.values()) {
+                handler.sendNotice(line, version);
+            }
+        });
     }
 
     /**
@@ -235,7 +799,7 @@ public class AuctionHouse {
      * @return a usable external IPv4 address
      * @throws IOException if no valid address is found
      */
-    private String getExternalIpAddress() throws IOException {
+    static String getExternalIpAddress() throws IOException {
         for (NetworkInterface netInterface :
                 Collections.list(NetworkInterface.getNetworkInterfaces())) {
             if (netInterface.isLoopback() || !netInterface.isUp() ||
@@ -268,6 +832,49 @@ public class AuctionHouse {
         this.onUpdateCallback = callback;
     }
 
+    /**
+     * Registers a callback run with an item's ID whenever that item's bid or
+     * status changes, so a view can refresh just that item.
+     *
+     * @param callback the per-item change routine
+     */
+    public void setOnItemChanged(IntConsumer callback) {
+        this.onItemChanged = callback;
+    }
+
+    /**
+     * Registers a callback run whenever items join or leave this house's
+     * active and pending sets, so a view can add and drop rows only then.
+     *
+     * @param callback the membership change routine
+     */
+    public void setOnItemsChanged(Runnable callback) {
+        this.onItemsChanged = callback;
+    }
+
+    /**
+     * Reports that items were sold, activated, adopted or released, through
+     * the registered callback, if any.
+     */
+    public void notifyItemsChanged() {
+        Runnable callback = onItemsChanged;
+        if (callback != null) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Reports a change to one item through the registered per-item callback, if any.
+     *
+     * @param itemId the ID of the item that changed
+     */
+    public void notifyItemChanged(int itemId) {
+        IntConsumer callback = onItemChanged;
+        if (callback != null) {
+            callback.accept(itemId);
+        }
+    }
+
     /**
      * Triggers the registered UI update callback, if one is set.
      * Used to notify the GUI of state changes.
@@ -1,23 +1,36 @@
 package auctionhouse;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
-import javafx.beans.binding.Bindings;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * GUI for visualizing the state of the Auction House.
  * Displays items for sale, connected agents, and supports controlled shutdown.
  * <p>
+ * Changes are only recorded as they happen; a frame timer applies them at most
+ * once per frame, updating just the changed item rows and agent labels in place.
+ * The timer stops while the window is hidden or minimized.
+ * <p>
  * Part of CS 351 Project 5 – Distributed Auction.
  *
  * @author Isaac Tapia
@@ -27,8 +40,48 @@ public class AuctionHouseGUI {
 
     private final AuctionHouse house;
     private Label headerLabel;
-    private TableView<AuctionItem> itemTable;
+    private TableView<ItemRow> itemTable;
     private VBox agentListPane;
+    private final Map<Integer, ItemRow> rows = new HashMap<>();
+    private final Map<Integer, Label> agentLabels = new HashMap<>();
+    private final Set<Integer> changedItems = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean stateChanged = new AtomicBoolean(true);
+    private final AtomicBoolean itemsChanged = new AtomicBoolean(true);
+    private final AnimationTimer refreshTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            refresh();
+        }
+    };
+
+    /**
+     * One table row, holding the displayed values of an item.
+     * Properties are only written on the FX thread, by {@link #update()}.
+     */
+    private static final class ItemRow {
+        private final AuctionItem item;
+        private final IntegerProperty itemId = new SimpleIntegerProperty();
+        private final StringProperty description = new SimpleStringProperty();
+        private final IntegerProperty minimumBid = new SimpleIntegerProperty();
+        private final IntegerProperty currentBid = new SimpleIntegerProperty();
+        private final StringProperty status = new SimpleStringProperty();
+
+        ItemRow(AuctionItem item) {
+            this.item = item;
+            itemId.set(item.getItemId());
+            description.set(item.getDescription());
+            minimumBid.set(item.getMinimumBid());
+            update();
+        }
+
+        /**
+         * Copies the item's current bid and status; unchanged values fire no events.
+         */
+        void update() {
+            currentBid.set(item.getCurrentBid());
+            status.set(item.isSold() ? "SOLD" : item.isActive() ? "ACTIVE" : "WAITING");
+        }
+    }
 
     /**
      * Constructs a GUI bound to the given AuctionHouse instance.
@@ -62,9 +115,10 @@ public class AuctionHouseGUI {
             handleShutdown();
         });
 
-        primaryStage.show();
+        primaryStage.showingProperty().addListener((obs, was, showing) -> updateTimer(primaryStage));
+        primaryStage.iconifiedProperty().addListener((obs, was, iconified) -> updateTimer(primaryStage));
 
-        updateUI();
+        primaryStage.show();
     }
 
     /**
@@ -83,33 +137,24 @@ public class AuctionHouseGUI {
     /**
      * Constructs the item table view showing ID, description, bids, and status.
      */
-    private TableView<AuctionItem> createItemTable() {
+    private TableView<ItemRow> createItemTable() {
         itemTable = new TableView<>();
         itemTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
-        TableColumn<AuctionItem, Integer> idCol = new TableColumn<>("ID");
-        idCol.setCellValueFactory(new PropertyValueFactory<>("itemId"));
-
-        TableColumn<AuctionItem, String> descCol = new TableColumn<>("Description");
-        descCol.setCellValueFactory(new PropertyValueFactory<>("description"));
+        TableColumn<ItemRow, Number> idCol = new TableColumn<>("ID");
+        idCol.setCellValueFactory(cellData -> cellData.getValue().itemId);
 
-        TableColumn<AuctionItem, Integer> minBidCol = new TableColumn<>("MinBid");
-        minBidCol.setCellValueFactory(new PropertyValueFactory<>("minimumBid"));
+        TableColumn<ItemRow, String> descCol = new TableColumn<>("Description");
+        descCol.setCellValueFactory(cellData -> cellData.getValue().description);
 
-        TableColumn<AuctionItem, Integer> bidCol = new TableColumn<>("Bid");
-        bidCol.setCellValueFactory(new PropertyValueFactory<>("currentBid"));
+        TableColumn<ItemRow, Number> minBidCol = new TableColumn<>("MinBid");
+        minBidCol.setCellValueFactory(cellData -> cellData.getValue().minimumBid);
 
-        TableColumn<AuctionItem, String> statusCol = new TableColumn<>("Status");
+        TableColumn<ItemRow, Number> bidCol = new TableColumn<>("Bid");
+        bidCol.setCellValueFactory(cellData -> cellData.getValue().currentBid);
 
-        // Dynamically bind status label based on item state
-        statusCol.setCellValueFactory(cellData -> {
-            AuctionItem item = cellData.getValue();
-            return Bindings.createStringBinding(() -> {
-                if (item.isSold()) return "SOLD";
-                if (item.isActive()) return "ACTIVE";
-                return "WAITING";
-            });
-        });
+        TableColumn<ItemRow, String> statusCol = new TableColumn<>("Status");
+        statusCol.setCellValueFactory(cellData -> cellData.getValue().status);
 
         itemTable.getColumns().addAll(List.of(idCol, descCol, minBidCol, bidCol, statusCol));
         return itemTable;
@@ -164,19 +209,114 @@ public class AuctionHouseGUI {
     }
 
     /**
-     * Refreshes the entire GUI: header, item table, and agent list.
+     * Records that the auction house state changed. The header and agent list
+     * are refreshed on the next frame.
+     * Safe to call from any thread; costs one flag write.
      */
     public void updateUI() {
-        Platform.runLater(() -> {
+        stateChanged.set(true);
+    }
+
+    /**
+     * Records that items joined or left the house, so rows are added and
+     * dropped on the next frame. Bids alone never call this.
+     * Safe to call from any thread; costs one flag write.
+     */
+    public void markItemsChanged() {
+        itemsChanged.set(true);
+    }
+
+    /**
+     * Records that one item changed so only its row is refreshed on the next frame.
+     * Safe to call from any thread.
+     *
+     * @param itemId the ID of the item that changed
+     */
+    public void markItemChanged(int itemId) {
+        changedItems.add(itemId);
+    }
+
+    /**
+     * Runs the frame timer only while the window is showing and not minimized.
+     * Changes recorded while it is stopped are applied when it restarts.
+     */
+    private void updateTimer(Stage stage) {
+        if (stage.isShowing() && !stage.isIconified()) {
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+    }
+
+    /**
+     * Applies the changes recorded since the last frame, if any.
+     */
+    private void refresh() {
+        if (!changedItems.isEmpty()) {
+            for (Integer itemId : changedItems) {
+                changedItems.remove(itemId);
+                ItemRow row = rows.get(itemId);
+                if (row != null && !row.item.isSold()) {
+                    row.update();
+                } else {
+                    itemsChanged.set(true);
+                }
+            }
+        }
+
+        if (stateChanged.getAndSet(false)) {
             headerLabel.setText("ID: " + house.getAccountId() + " | Port: " + house.getPort());
-            itemTable.getItems().setAll(house.getItemManager().getAllItems());
+            syncAgents();
+        }
+        if (itemsChanged.getAndSet(false)) {
+            syncRows();
+        }
+    }
 
-            agentListPane.getChildren().removeIf(n -> n instanceof Label &&
-                    ((Label) n).getText().startsWith("Agent"));
+    /**
+     * Matches the rows to the active and pending items: adds rows for new
+     * items and drops rows for items that were sold or handed to another
+     * house. Runs only when items join or leave, never for a bid; rows that
+     * stay are refreshed through {@link #markItemChanged(int)}. Sold items are
+     * listed by the admin SOLD command instead, so the cost does not grow with
+     * the sales history.
+     */
+    private void syncRows() {
+        Map<Integer, AuctionItem> current = new HashMap<>();
+        for (AuctionItem item : house.getItemManager().getAllItems()) {
+            current.put(item.getItemId(), item);
+        }
 
-            for (Integer id : house.getAgentIds()) {
-                agentListPane.getChildren().add(new Label("Agent " + id));
+        // One pass over the table rather than a linear remove per dropped row
+        if (rows.keySet().removeIf(itemId -> !current.containsKey(itemId))) {
+            itemTable.getItems().removeIf(row -> !rows.containsKey(row.item.getItemId()));
+        }
+        for (AuctionItem item : current.values()) {
+            if (!rows.containsKey(item.getItemId())) {
+                ItemRow row = new ItemRow(item);
+                rows.put(item.getItemId(), row);
+                itemTable.getItems().add(row);
             }
+        }
+    }
+
+    /**
+     * Adds and removes agent labels to match the connected agents.
+     */
+    private void syncAgents() {
+        Set<Integer> connected = new HashSet<>(house.getAgentIds());
+
+        agentLabels.entrySet().removeIf(entry -> {
+            if (connected.contains(entry.getKey())) return false;
+            agentListPane.getChildren().remove(entry.getValue());
+            return true;
         });
+        for (Integer id : connected) {
+            if (!agentLabels.containsKey(id)) {
+                Label label = new Label("Agent " + id);
+                agentLabels.put(id, label);
+                agentListPane.getChildren().add(label);
+            }
+        }
     }
 }
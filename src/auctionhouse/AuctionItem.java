@@ -3,6 +3,8 @@ package auctionhouse;
 /**
  * Represents a single item being auctioned.
  * Tracks bid information, bidder ID, and sale status.
+ * The state itself lives in a row of an {@link ItemStore}; this object is a
+ * lightweight view over that row and the monitor guarding it.
  * <p>
  * Part of CS 351 Project 5 – Distributed Auction.
  *
@@ -11,57 +13,63 @@ package auctionhouse;
  */
 public class AuctionItem {
 
-    private final int itemId;
-    private final String description;
-    private final int minimumBid;
-    private int currentBid;
-    private int currentBidderId;
-    private boolean sold;
-    private boolean active;
+    private final ItemStore store;
+    private final int row;
 
     /**
-     * Constructs an AuctionItem with the given ID, description, and minimum bid.
-     * Initializes the item as unsold with no current bidder.
+     * Constructs a view over one row of an item store.
+     * Items are created through {@link ItemStore#add}, which starts them
+     * unsold with no current bidder.
      *
-     * @param itemId      unique identifier for the item
-     * @param description text description of the item
-     * @param minimumBid  minimum acceptable bid for this item
+     * @param store the store holding this item's state
+     * @param row   the row index of this item
      */
-    public AuctionItem(int itemId, String description, int minimumBid) {
-        this.itemId = itemId;
-        this.description = description;
-        this.minimumBid = minimumBid;
-        this.currentBid = 0;
-        this.currentBidderId = -1;
-        this.sold = false;
+    AuctionItem(ItemStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    /**
+     * @return the store row this view reads
+     */
+    int row() {
+        return row;
     }
 
     /**
      * @return the unique ID of this item
      */
     public int getItemId() {
-        return itemId;
+        return store.itemId(row);
     }
 
     /**
      * @return the description of the item
      */
     public String getDescription() {
-        return description;
+        return store.description(row);
     }
 
     /**
      * @return the minimum acceptable bid for this item
      */
     public int getMinimumBid() {
-        return minimumBid;
+        return store.minimumBid(row);
     }
 
     /**
      * @return the current highest bid placed on this item
      */
     public int getCurrentBid() {
-        return currentBid;
+        return store.currentBid(row);
+    }
+
+    /**
+     * @return the price used for listing order and filters: the current bid,
+     * or the minimum bid if no bids have been placed
+     */
+    public int getPrice() {
+        return Math.max(store.currentBid(row), store.minimumBid(row));
     }
 
     /**
@@ -69,21 +77,21 @@ public class AuctionItem {
      * or -1 if no bids have been placed
      */
     public int getCurrentBidderId() {
-        return currentBidderId;
+        return store.bidderId(row);
     }
 
     /**
      * @return true if the item has been sold; false otherwise
      */
     public boolean isSold() {
-        return sold;
+        return store.hasFlag(row, ItemStore.FLAG_SOLD);
     }
 
     /**
      * @return true if the item is currently active in an auction; false otherwise
      */
     public boolean isActive() {
-        return active;
+        return store.hasFlag(row, ItemStore.FLAG_ACTIVE);
     }
 
     /**
@@ -94,18 +102,46 @@ public class AuctionItem {
      * @param bidAmount the amount of the bid
      */
     public synchronized void placeBid(int agentId, int bidAmount) {
-        if (sold || bidAmount <= currentBid || bidAmount < minimumBid) {
+        if (isSold() || bidAmount <= getCurrentBid() || bidAmount < getMinimumBid()) {
             return;
         }
-        currentBid = bidAmount;
-        currentBidderId = agentId;
+        store.setBid(row, agentId, bidAmount);
+    }
+
+    /**
+     * Removes the current bid, returning the item to its unbid state.
+     */
+    public synchronized void clearBid() {
+        store.setBid(row, -1, 0);
     }
 
     /**
      * Marks the item as sold and prevents further bidding.
      */
     public synchronized void markAsSold() {
-        this.sold = true;
+        store.setFlag(row, ItemStore.FLAG_SOLD, true);
+    }
+
+    /**
+     * Atomically moves the item from active to sold. Only one caller can win,
+     * so an item is never sold twice and a bid checking {@link #isActive()}
+     * afterwards is refused.
+     *
+     * @return true if this call sold the item
+     */
+    public boolean tryMarkSold() {
+        return store.transition(row, ItemStore.FLAG_ACTIVE | ItemStore.FLAG_SOLD,
+                ItemStore.FLAG_ACTIVE, ItemStore.FLAG_SOLD, ItemStore.FLAG_ACTIVE);
+    }
+
+    /**
+     * Atomically moves the item from waiting to active.
+     *
+     * @return true if this call activated the item; false if it was already active or sold
+     */
+    boolean tryActivate() {
+        return store.transition(row, ItemStore.FLAG_ACTIVE | ItemStore.FLAG_SOLD, 0,
+                ItemStore.FLAG_ACTIVE, 0);
     }
 
     /**
@@ -113,8 +149,8 @@ public class AuctionItem {
      *
      * @param active true if the item is active; false otherwise
      */
-    public void setActive(boolean active) {
-        this.active = active;
+    public synchronized void setActive(boolean active) {
+        store.setFlag(row, ItemStore.FLAG_ACTIVE, active);
     }
 
     /**
@@ -124,8 +160,8 @@ public class AuctionItem {
     public String toString() {
         return String.format(
                 "Item %d: %s | Min Bid: %d | Current Bid: %d | Status: %s",
-                itemId, description, minimumBid, currentBid,
-                sold ? "SOLD" : "OPEN"
+                getItemId(), getDescription(), getMinimumBid(), getCurrentBid(),
+                isSold() ? "SOLD" : "OPEN"
         );
     }
 }
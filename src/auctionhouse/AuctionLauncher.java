@@ -3,7 +3,9 @@ package auctionhouse;
 import javafx.application.Application;
 import javafx.stage.Stage;
 import shared.BankClient;
-import shared.SocketBankClient;
+import shared.SharedMemoryBankClient;
+
+import java.nio.file.Path;
 
 /**
  * Launches the auction house by connecting to the bank.
@@ -23,7 +25,7 @@ public class AuctionLauncher extends Application {
         String[] args = getParameters().getRaw().toArray(new String[0]);
 
         if (args.length < 3) {
-            System.err.println("Usage: java AuctionLauncher <bankHost> <bankPort> <auctionPort>");
+            System.err.println("Usage: java AuctionLauncher <bankHost> <bankPort> <auctionPort> [bidLogFile]");
             System.exit(1);
         }
 
@@ -32,17 +34,27 @@ public class AuctionLauncher extends Application {
         int auctionPort = Integer.parseInt(args[2]);
 
         try {
-            BankClient bankClient = new SocketBankClient(bankHost, bankPort);
+            BankClient bankClient = SharedMemoryBankClient.connect(bankHost, bankPort);
 
             ItemManager itemManager = new ItemManager();
             itemManager.loadItemsFromResource("items.txt");
 
             house = new AuctionHouse(auctionPort, bankClient, itemManager);
 
+            house.configure(System.getProperties());
+
+            if (args.length > 3) {
+                BidLog bidLog = new BidLog(Path.of(args[3]));
+                itemManager.restore(bidLog, house);
+                Runtime.getRuntime().addShutdownHook(new Thread(bidLog::close));
+            }
+
             new Thread(() -> house.start()).start();
 
             AuctionHouseGUI gui = new AuctionHouseGUI(house);
             house.setOnUpdate(gui::updateUI);
+            house.setOnItemChanged(gui::markItemChanged);
+            house.setOnItemsChanged(gui::markItemsChanged);
             gui.show(primaryStage);
 
         } catch (Exception e) {
@@ -0,0 +1,25 @@
+package auctionhouse;
+
+/**
+ * What an auction house does with an agent whose outbound queue passes its
+ * high watermark because the agent is not reading fast enough.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Keep the connection, but replace queued item updates with newer ones
+     * for the same item until the queue drains below the low watermark.
+     * The agent is still disconnected if the queue reaches a hard limit.
+     */
+    DROP_UPDATES,
+
+    /**
+     * Disconnect the agent and release its winning bids.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,209 @@
+package auctionhouse;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events covering the lifecycle of a bid, from the BID
+ * line arriving to the auction timer settling the item. Recorded alongside the
+ * JVM's own GC, lock and thread events, they show where a slow bid spent its time.
+ * <p>
+ * Each duration event is started with {@code begin()} and finished with
+ * {@code complete(...)}, which only fills in fields when the event will actually
+ * be recorded, so the cost with recording off is an allocation the JIT can
+ * usually eliminate.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public final class BidEvents {
+
+    private BidEvents() {
+    }
+
+    @Name("auction.BidReceived")
+    @Label("Bid Received")
+    @Category({"Auction", "Bid"})
+    @Description("A BID line was read from an agent")
+    @StackTrace(false)
+    static final class Received extends Event {
+        @Label("Item ID")
+        int itemId;
+        @Label("Agent ID")
+        int agentId;
+        @Label("Amount")
+        int amount;
+
+        static void emit(int itemId, int agentId, int amount) {
+            Received event = new Received();
+            if (event.shouldCommit()) {
+                event.itemId = itemId;
+                event.agentId = agentId;
+                event.amount = amount;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("auction.BidValidation")
+    @Label("Bid Validation")
+    @Category({"Auction", "Bid"})
+    @Description("A bid was checked against the item's state while holding its lock")
+    @StackTrace(false)
+    static final class Validation extends Event {
+        @Label("Item ID")
+        int itemId;
+        @Label("Agent ID")
+        int agentId;
+        @Label("Amount")
+        int amount;
+        @Label("Rejection")
+        @Description("Why the bid was rejected, or null if it was valid")
+        String rejection;
+
+        void complete(int itemId, int agentId, int amount, String rejection) {
+            end();
+            if (shouldCommit()) {
+                this.itemId = itemId;
+                this.agentId = agentId;
+                this.amount = amount;
+                this.rejection = rejection;
+                commit();
+            }
+        }
+    }
+
+    @Name("auction.BankHold")
+    @Label("Bank Hold")
+    @Category({"Auction", "Bid"})
+    @Description("Round trip of the bank call holding a bidder's funds")
+    @StackTrace(false)
+    static final class BankHold extends Event {
+        @Label("Item ID")
+        int itemId;
+        @Label("Agent ID")
+        int agentId;
+        @Label("Amount")
+        int amount;
+        @Label("Held")
+        boolean held;
+
+        void complete(int itemId, int agentId, int amount, boolean held) {
+            end();
+            if (shouldCommit()) {
+                this.itemId = itemId;
+                this.agentId = agentId;
+                this.amount = amount;
+                this.held = held;
+                commit();
+            }
+        }
+    }
+
+    @Name("auction.BidCommit")
+    @Label("Bid Commit")
+    @Category({"Auction", "Bid"})
+    @Description("An accepted bid was applied to the item and its timer restarted")
+    @StackTrace(false)
+    static final class Commit extends Event {
+        @Label("Item ID")
+        int itemId;
+        @Label("Agent ID")
+        int agentId;
+        @Label("Amount")
+        int amount;
+
+        void complete(int itemId, int agentId, int amount) {
+            end();
+            if (shouldCommit()) {
+                this.itemId = itemId;
+                this.agentId = agentId;
+                this.amount = amount;
+                commit();
+            }
+        }
+    }
+
+    @Name("auction.Broadcast")
+    @Label("Item Broadcast")
+    @Category({"Auction", "Bid"})
+    @Description("An item update was queued for every connected agent")
+    @StackTrace(false)
+    static final class Broadcast extends Event {
+        @Label("Item ID")
+        int itemId;
+        @Label("Amount")
+        int amount;
+        @Label("Agents")
+        int agents;
+
+        void complete(int itemId, int amount, int agents) {
+            end();
+            if (shouldCommit()) {
+                this.itemId = itemId;
+                this.amount = amount;
+                this.agents = agents;
+                commit();
+            }
+        }
+    }
+
+    @Name("auction.TimerFired")
+    @Label("Auction Timer Fired")
+    @Category({"Auction", "Settlement"})
+    @Description("An item's auction timer expired and the item was closed")
+    @StackTrace(false)
+    static final class TimerFired extends Event {
+        @Label("Item ID")
+        int itemId;
+        @Label("Agent ID")
+        @Description("The winning agent, or -1 if the item had no bid")
+        int agentId;
+        @Label("Amount")
+        int amount;
+
+        void complete(int itemId, int agentId, int amount) {
+            end();
+            if (shouldCommit()) {
+                this.itemId = itemId;
+                this.agentId = agentId;
+                this.amount = amount;
+                commit();
+            }
+        }
+    }
+
+    @Name("auction.Settlement")
+    @Label("Settlement")
+    @Category({"Auction", "Settlement"})
+    @Description("The winner's held funds for a sold item were transferred to the house")
+    @StackTrace(false)
+    static final class Settlement extends Event {
+        @Label("Item ID")
+        int itemId;
+        @Label("Agent ID")
+        int agentId;
+        @Label("Amount")
+        int amount;
+        @Label("Settled")
+        @Description("Whether the bank accepted the transfer")
+        boolean settled;
+
+        void complete(int itemId, int agentId, int amount, boolean settled) {
+            end();
+            if (shouldCommit()) {
+                this.itemId = itemId;
+                this.agentId = agentId;
+                this.amount = amount;
+                this.settled = settled;
+                commit();
+            }
+        }
+    }
+}
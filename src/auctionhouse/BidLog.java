@@ -0,0 +1,198 @@
+package auctionhouse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of auction events used to rebuild an item manager after a restart.
+ * Records are fixed-size binary entries: type, item ID, agent ID, amount and timestamp.
+ * Appends go to an in-memory batch that a background thread writes and fsyncs
+ * every few milliseconds, so many events share one disk sync.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class BidLog {
+
+    static final byte ACTIVATED = 1;
+    static final byte BID_ACCEPTED = 2;
+    static final byte OUTBID = 3;
+    static final byte SOLD = 4;
+    static final byte RELEASED = 5;
+
+    private static final int RECORD_SIZE = 1 + 4 + 4 + 4 + 8;
+    private static final int BATCH_SIZE = RECORD_SIZE * 4096;
+    private static final long FLUSH_INTERVAL_MS = 5;
+
+    private final Path path;
+    private final FileChannel channel;
+    private ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocateDirect(BATCH_SIZE);
+    private final ScheduledExecutorService flusher =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "bid-log-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Replayed state of a single item, folded from all of its log records.
+     */
+    static final class ItemState {
+        boolean active;
+        boolean sold;
+        int bidderId = -1;
+        int amount;
+        long lastBidAt;
+        long soldAt;
+    }
+
+    /**
+     * Opens (or creates) a log file for appending and starts the flush thread.
+     * A partially written trailing record from a crash is discarded.
+     *
+     * @param path the log file location
+     * @throws IOException if the file cannot be opened
+     */
+    public BidLog(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = channel.size() - channel.size() % RECORD_SIZE;
+        channel.truncate(valid);
+        channel.position(valid);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MS,
+                FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the whole log and folds it into the latest state of each item.
+     * The file is streamed sequentially through a large direct buffer, so
+     * replay cost is one pass with constant work per record.
+     *
+     * @return item ID to replayed state, empty if the log is new
+     * @throws IOException if the file cannot be read
+     */
+    Map<Integer, ItemState> replay() throws IOException {
+        Map<Integer, ItemState> states = new HashMap<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 65536);
+
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (reader.read(buffer) > 0 || buffer.position() >= RECORD_SIZE) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    apply(states, buffer.get(), buffer.getInt(), buffer.getInt(),
+                            buffer.getInt(), buffer.getLong());
+                }
+                buffer.compact();
+            }
+        }
+        return states;
+    }
+
+    private static void apply(Map<Integer, ItemState> states, byte type, int itemId,
+                              int agentId, int amount, long timestamp) {
+        ItemState state = states.computeIfAbsent(itemId, id -> new ItemState());
+        switch (type) {
+            case ACTIVATED -> state.active = true;
+            case BID_ACCEPTED -> {
+                state.bidderId = agentId;
+                state.amount = amount;
+                state.lastBidAt = timestamp;
+            }
+            case SOLD -> {
+                state.active = false;
+                state.sold = true;
+                state.bidderId = agentId;
+                state.amount = amount;
+                state.soldAt = timestamp;
+            }
+            case RELEASED -> {
+                state.bidderId = -1;
+                state.amount = 0;
+            }
+            default -> {
+                // OUTBID records are informational; the following BID_ACCEPTED carries the state
+            }
+        }
+    }
+
+    /**
+     * Appends an event. It becomes durable at the next batched flush.
+     *
+     * @param type    one of the record type constants
+     * @param itemId  the item the event concerns
+     * @param agentId the agent involved, or -1
+     * @param amount  the bid amount involved, or 0
+     */
+    public void append(byte type, int itemId, int agentId, int amount) {
+        while (true) {
+            synchronized (this) {
+                if (batch.remaining() >= RECORD_SIZE) {
+                    batch.put(type).putInt(itemId).putInt(agentId).putInt(amount)
+                            .putLong(System.currentTimeMillis());
+                    return;
+                }
+            }
+            flushQuietly();
+        }
+    }
+
+    /**
+     * Writes and fsyncs everything appended so far.
+     *
+     * @throws IOException if the write or sync fails
+     */
+    public void flush() throws IOException {
+        synchronized (channel) {
+            ByteBuffer pending;
+            synchronized (this) {
+                if (batch.position() == 0) return;
+                pending = batch;
+                batch = spare;
+                spare = pending;
+            }
+
+            try {
+                pending.flip();
+                while (pending.hasRemaining()) {
+                    channel.write(pending);
+                }
+                channel.force(false);
+            } finally {
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * Flushes outstanding records and closes the log file.
+     */
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing bid log: " + e.getMessage());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Bid log flush failed: " + e.getMessage());
+        }
+    }
+}
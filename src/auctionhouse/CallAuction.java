@@ -0,0 +1,238 @@
+package auctionhouse;
+
+import shared.BankClient;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic call-auction clearing for an auction house.
+ * Instead of resolving each bid on arrival, bids are collected in an order book
+ * and every item is cleared once per round: the highest valid order wins, and
+ * the winners' funds for all items are held with one batched bank call. Orders
+ * whose hold fails fall through to the next-best order for that item in a
+ * follow-up batch. Each cleared item is broadcast once per round.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class CallAuction {
+
+    private static final int MAX_HOLD_ROUNDS = 3;
+
+    private final AuctionHouse house;
+    private final ItemManager itemManager;
+    private final BankClient bankClient;
+    private final long intervalMillis;
+    private Map<Integer, List<Order>> book = new HashMap<>();
+    private long sequence = 0;
+    private final ScheduledExecutorService clearingService =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "call-auction-clearing");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * A resting bid in the order book.
+     */
+    private record Order(int itemId, int agentId, int amount, long sequence) {
+    }
+
+    /**
+     * @param house          the auction house whose agents are notified
+     * @param itemManager    the item manager holding the auctioned items
+     * @param bankClient     the client used to hold and release funds
+     * @param intervalMillis how long orders are collected before each clearing
+     */
+    public CallAuction(AuctionHouse house, ItemManager itemManager, BankClient bankClient,
+                       long intervalMillis) {
+        this.house = house;
+        this.itemManager = itemManager;
+        this.bankClient = bankClient;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Starts clearing the order book at the configured interval.
+     */
+    public void start() {
+        clearingService.scheduleAtFixedRate(this::clearQuietly, intervalMillis,
+                intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the clearing schedule. Orders still in the book are discarded.
+     */
+    public void shutdown() {
+        clearingService.shutdownNow();
+    }
+
+    /**
+     * @return how long orders are collected before each clearing, in milliseconds
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Adds a bid to the order book for the next clearing round.
+     *
+     * @param itemId  the item being bid on
+     * @param agentId the bidding agent
+     * @param amount  the bid amount
+     */
+    public synchronized void submit(int itemId, int agentId, int amount) {
+        book.computeIfAbsent(itemId, id -> new ArrayList<>())
+                .add(new Order(itemId, agentId, amount, sequence++));
+    }
+
+    private void clearQuietly() {
+        try {
+            clear();
+        } catch (RuntimeException e) {
+            System.err.println("Call auction clearing failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Clears one round: picks each item's best order, holds the winners' funds
+     * in batches, applies the winning bids and notifies everyone involved.
+     */
+    void clear() {
+        Map<Integer, List<Order>> round;
+        synchronized (this) {
+            if (book.isEmpty()) return;
+            round = book;
+            book = new HashMap<>();
+        }
+
+        Map<Integer, Deque<Order>> candidates = new HashMap<>();
+        List<Order> losers = new ArrayList<>();
+        for (Map.Entry<Integer, List<Order>> entry : round.entrySet()) {
+            AuctionItem item = itemManager.getItem(entry.getKey());
+            List<Order> orders = entry.getValue();
+            orders.sort(Comparator.comparingInt(Order::amount).reversed()
+                    .thenComparingLong(Order::sequence));
+
+            Deque<Order> ranked = new ArrayDeque<>();
+            for (Order order : orders) {
+                if (item != null && isValid(item, order)) {
+                    ranked.add(order);
+                } else {
+                    losers.add(order);
+                }
+            }
+            if (!ranked.isEmpty()) {
+                candidates.put(entry.getKey(), ranked);
+            }
+        }
+
+        Map<Integer, Order> winners = holdWinners(candidates, losers);
+        for (Deque<Order> remaining : candidates.values()) {
+            losers.addAll(remaining);
+        }
+
+        Map<Integer, Integer> refunds = new HashMap<>();
+        for (Order winner : winners.values()) {
+            AuctionItem item = itemManager.getItem(winner.itemId());
+            if (item == null || !apply(item, winner, refunds)) {
+                refunds.merge(winner.agentId(), winner.amount(), Integer::sum);
+                losers.add(winner);
+                continue;
+            }
+            house.broadcastItemUpdate(item);
+            AgentHandler handler = house.getAgentHandler(winner.agentId());
+            if (handler != null) {
+                handler.sendBidAccepted(winner.itemId());
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> refund : refunds.entrySet()) {
+            bankClient.unblockFunds(refund.getKey(), refund.getValue());
+        }
+        for (Order loser : losers) {
+            AgentHandler handler = house.getAgentHandler(loser.agentId());
+            if (handler != null) {
+                handler.sendBidRejected("Not the winning bid for item " + loser.itemId());
+            }
+        }
+    }
+
+    /**
+     * Holds funds for the best remaining order of every item, one batched bank
+     * call per attempt, moving to the next-best order where a hold fails.
+     * Orders are removed from {@code candidates} as they are tried, and the
+     * orders left behind a successful hold are added to {@code losers}.
+     *
+     * @return item ID to the order whose funds are now held
+     */
+    private Map<Integer, Order> holdWinners(Map<Integer, Deque<Order>> candidates,
+                                            List<Order> losers) {
+        Map<Integer, Order> winners = new HashMap<>();
+
+        for (int attempt = 0; attempt < MAX_HOLD_ROUNDS && !candidates.isEmpty(); attempt++) {
+            List<Order> tries = new ArrayList<>();
+            for (Deque<Order> ranked : candidates.values()) {
+                tries.add(ranked.poll());
+            }
+
+            int[] agentIds = new int[tries.size()];
+            int[] amounts = new int[tries.size()];
+            for (int i = 0; i < tries.size(); i++) {
+                agentIds[i] = tries.get(i).agentId();
+                amounts[i] = tries.get(i).amount();
+            }
+            boolean[] held = bankClient.blockFundsBatch(agentIds, amounts);
+
+            for (int i = 0; i < tries.size(); i++) {
+                Order order = tries.get(i);
+                if (held[i]) {
+                    winners.put(order.itemId(), order);
+                    losers.addAll(candidates.remove(order.itemId()));
+                } else {
+                    AgentHandler handler = house.getAgentHandler(order.agentId());
+                    if (handler != null) {
+                        handler.sendBidRejected("Insufficient funds for item " + order.itemId());
+                    }
+                }
+            }
+            candidates.values().removeIf(Deque::isEmpty);
+        }
+        return winners;
+    }
+
+    /**
+     * Places a winning order on its item if it still beats the item's state.
+     * The previous bidder's hold is added to {@code refunds}.
+     *
+     * @return false if the item changed and the order no longer applies
+     */
+    private boolean apply(AuctionItem item, Order order, Map<Integer, Integer> refunds) {
+        synchronized (item) {
+            if (!isValid(item, order)) {
+                return false;
+            }
+
+            int prevBidder = item.getCurrentBidderId();
+            if (prevBidder != -1) {
+                refunds.merge(prevBidder, item.getCurrentBid(), Integer::sum);
+                house.notifyOutbid(prevBidder, item.getItemId());
+            }
+            itemManager.recordBid(item, order.agentId(), order.amount());
+            itemManager.startAuctionTimer(item, house);
+            return true;
+        }
+    }
+
+    private static boolean isValid(AuctionItem item, Order order) {
+        return !item.isSold() && item.isActive()
+                && order.amount() >= item.getMinimumBid()
+                && order.amount() > item.getCurrentBid()
+                && order.agentId() != item.getCurrentBidderId();
+    }
+}
@@ -0,0 +1,181 @@
+package auctionhouse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned record of what the house has told its agents, so an agent that
+ * reconnects can be sent only what it missed instead of the whole catalog.
+ * <p>
+ * Every item broadcast and every personal notification (OUTBID, WINNER) takes
+ * the next version from one counter. Item changes are kept in a ring of the
+ * most recent {@code capacity} entries; a resuming agent whose version is older
+ * than the ring gets a full snapshot instead. The last few notifications of
+ * each agent are kept so they can be replayed after a reconnect, even if the
+ * agent was not connected when they were sent. Notifications are kept for as
+ * long as item changes are: once an agent's last one is older than the ring,
+ * its backlog is dropped, so agents that never return are not kept forever.
+ * <p>
+ * Callers hold this object's monitor while recording a change and queueing
+ * its delivery, so deliveries are queued in version order; the sends
+ * themselves happen after the monitor is released.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class ChangeLog {
+
+    private static final int NOTICES_PER_AGENT = 32;
+
+    /**
+     * A personal notification and the version it was sent under.
+     */
+    public record Notice(long version, String line) {
+    }
+
+    /**
+     * An item that changed, and whether its latest change took it out of this
+     * house's catalog without a sale, as when it moves to another partition.
+     */
+    public record Change(int itemId, boolean removed) {
+    }
+
+    private final long[] versions;
+    private final int[] itemIds;
+    private final boolean[] removals;
+    private int head = 0;
+    private int count = 0;
+    private long version = 0;
+    // Highest version of an item change that fell out of the ring
+    private long evicted = 0;
+    private final Map<Integer, Deque<Notice>> notices = new HashMap<>();
+
+    /**
+     * @param capacity the number of recent item changes kept
+     */
+    public ChangeLog(int capacity) {
+        versions = new long[capacity];
+        itemIds = new int[capacity];
+        removals = new boolean[capacity];
+    }
+
+    /**
+     * @return the version of the latest change
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Records a change to an item's state.
+     *
+     * @param itemId the item that changed
+     * @return the version of the change
+     */
+    public synchronized long record(int itemId) {
+        return record(itemId, false);
+    }
+
+    /**
+     * Records that an item left the catalog without being sold.
+     *
+     * @param itemId the item removed
+     * @return the version of the change
+     */
+    public synchronized long recordRemoval(int itemId) {
+        return record(itemId, true);
+    }
+
+    private long record(int itemId, boolean removed) {
+        int slot = (head + count) % versions.length;
+        if (count == versions.length) {
+            evicted = versions[head];
+            head = (head + 1) % versions.length;
+        } else {
+            count++;
+        }
+        versions[slot] = ++version;
+        itemIds[slot] = itemId;
+        removals[slot] = removed;
+        // Once per turn of the ring, so the sweep costs little per change
+        if (slot == 0) {
+            pruneNotices();
+        }
+        return version;
+    }
+
+    /**
+     * Drops the backlog of every agent whose latest notification is older
+     * than the oldest item change still kept.
+     */
+    private void pruneNotices() {
+        notices.values().removeIf(backlog -> backlog.peekLast().version() <= evicted);
+    }
+
+    /**
+     * Records a notification for one agent, keeping only its most recent ones.
+     *
+     * @param agentId the agent notified
+     * @param line    the notification as sent
+     * @return the version of the notification
+     */
+    public synchronized long notice(int agentId, String line) {
+        Deque<Notice> backlog = notices.computeIfAbsent(agentId, id -> new ArrayDeque<>());
+        if (backlog.size() == NOTICES_PER_AGENT) {
+            backlog.removeFirst();
+        }
+        backlog.addLast(new Notice(++version, line));
+        return version;
+    }
+
+    /**
+     * Lists the items that changed after a version, each once, oldest change first.
+     *
+     * @param since the last version the agent saw
+     * @return the changes, each with the kind of the item's latest change, or
+     * null if changes after that version are no longer kept or the version was
+     * never issued by this house
+     */
+    public synchronized List<Change> changedSince(long since) {
+        if (since < evicted || since > version) {
+            return null;
+        }
+        Map<Integer, Boolean> changed = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            int slot = (head + i) % versions.length;
+            if (versions[slot] > since) {
+                changed.put(itemIds[slot], removals[slot]);
+            }
+        }
+        List<Change> changes = new ArrayList<>(changed.size());
+        changed.forEach((itemId, removed) -> changes.add(new Change(itemId, removed)));
+        return changes;
+    }
+
+    /**
+     * Lists an agent's notifications sent after a version that are still kept.
+     *
+     * @param agentId the agent
+     * @param since   the last version the agent saw
+     * @return the notifications, oldest first
+     */
+    public synchronized List<Notice> noticesSince(int agentId, long since) {
+        List<Notice> missed = new ArrayList<>();
+        Deque<Notice> backlog = notices.get(agentId);
+        if (backlog != null) {
+            for (Notice notice : backlog) {
+                if (notice.version() > since) {
+                    missed.add(notice);
+                }
+            }
+        }
+        return missed;
+    }
+}
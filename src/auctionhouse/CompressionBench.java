@@ -0,0 +1,142 @@
+package auctionhouse;
+
+import shared.LineCompression;
+import shared.Message;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures what compressing {@code LIST} snapshots costs and saves.
+ * For catalogs of increasing size it reports the plain and packed reply sizes and the CPU time spent packing
+ * (on the house) and unpacking (on the agent) at several deflate levels,
+ * which is what {@code auction.compress.threshold} and
+ * {@code auction.compress.level} trade off. Each description is one of the
+ * house's item names followed by text of its own (a few words drawn from a
+ * large vocabulary and a lot number), so the ratio is not inflated by
+ * repeating a handful of descriptions across the whole catalog.
+ * <p>
+ * Usage: {@code java -cp auctionhouse.jar auctionhouse.CompressionBench [rounds]}
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class CompressionBench {
+
+    private static final int VOCABULARY_SIZE = 5_000;
+    private static final int[] CATALOG_SIZES = {10, 100, 1_000, 10_000, 50_000};
+    private static final int[] LEVELS = {1, 6, 9};
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        List<String> names = itemNames();
+        String[] vocabulary = vocabulary(new Random(0));
+
+        System.out.printf("%8s %5s %11s %11s %7s %12s %12s%n", "items", "level",
+                "plainBytes", "packedBytes", "ratio", "packUs/reply", "unpackUs/reply");
+        for (int size : CATALOG_SIZES) {
+            List<String> reply = catalog(size, names, vocabulary, new Random(size));
+            int plain = 0;
+            for (String line : reply) {
+                plain += line.length() + 1;
+            }
+
+            for (int level : LEVELS) {
+                // Warm up so the JIT has compiled both paths before timing
+                for (int i = 0; i < Math.max(5, rounds / 5); i++) {
+                    LineCompression.unpack(LineCompression.pack(reply, level));
+                }
+
+                String packed = null;
+                long start = threads.getCurrentThreadCpuTime();
+                for (int i = 0; i < rounds; i++) {
+                    packed = LineCompression.pack(reply, level);
+                }
+                long packNanos = threads.getCurrentThreadCpuTime() - start;
+
+                start = threads.getCurrentThreadCpuTime();
+                for (int i = 0; i < rounds; i++) {
+                    if (LineCompression.unpack(packed).size() != reply.size()) {
+                        throw new IllegalStateException("Unpacked reply differs");
+                    }
+                }
+                long unpackNanos = threads.getCurrentThreadCpuTime() - start;
+
+                System.out.printf("%8d %5d %11d %11d %6.1fx %12.1f %12.1f%n", size, level,
+                        plain, packed.length() + 1, (double) plain / (packed.length() + 1),
+                        packNanos / 1000.0 / rounds, unpackNanos / 1000.0 / rounds);
+            }
+        }
+    }
+
+    /**
+     * Builds a LIST reply for a catalog of the given size, with ITEM lines
+     * formatted as the house sends them and a mix of bid and unbid items.
+     * Every description is a real item name plus two to eight vocabulary
+     * words and a lot number, so no two descriptions are alike.
+     */
+    private static List<String> catalog(int size, List<String> names, String[] vocabulary,
+                                        Random random) {
+        List<String> reply = new ArrayList<>(size + 1);
+        for (int i = 0; i < size; i++) {
+            StringBuilder name = new StringBuilder(names.get(random.nextInt(names.size())));
+            for (int words = 2 + random.nextInt(7); words > 0; words--) {
+                name.append(' ').append(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            name.append(" lot ").append(Integer.toString(random.nextInt(Integer.MAX_VALUE), 36));
+            int minimumBid = 10 * (1 + random.nextInt(100));
+            int currentBid = random.nextBoolean() ? 0 : minimumBid + random.nextInt(5000);
+            reply.add(Message.encode("ITEM", String.valueOf(1000 + i), "\"" + name + "\"",
+                    String.valueOf(minimumBid), String.valueOf(currentBid)));
+        }
+        reply.add(Message.encode("END_ITEMS"));
+        return reply;
+    }
+
+    /**
+     * @return the item names the house ships with, from {@code items.txt}
+     */
+    private static List<String> itemNames() {
+        List<String> names = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                CompressionBench.class.getClassLoader().getResourceAsStream("items.txt"),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    names.add(line.split(",")[0].trim());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return names;
+    }
+
+    /**
+     * @return random lowercase words of 3 to 10 letters, standing in for the
+     * free text sellers write
+     */
+    private static String[] vocabulary(Random random) {
+        String[] words = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < words.length; i++) {
+            char[] letters = new char[3 + random.nextInt(8)];
+            for (int j = 0; j < letters.length; j++) {
+                letters[j] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(letters);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,86 @@
+package auctionhouse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Consistent-hash ring mapping item IDs to partition members.
+ * Each member is placed on the ring at several virtual points, so items spread
+ * evenly and adding or removing a member only moves the items between it and
+ * its neighbours.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class ConsistentHashRing {
+
+    private static final int VIRTUAL_NODES = 64;
+
+    private final NavigableMap<Integer, String> ring = new TreeMap<>();
+    private final Set<String> members = new LinkedHashSet<>();
+
+    /**
+     * Adds a member to the ring.
+     *
+     * @param member the member name, e.g. {@code host:port}
+     */
+    public synchronized void add(String member) {
+        if (!members.add(member)) return;
+        for (int i = 0; i < VIRTUAL_NODES; i++) {
+            ring.put(hash(member + "#" + i), member);
+        }
+    }
+
+    /**
+     * Removes a member from the ring.
+     *
+     * @param member the member name
+     */
+    public synchronized void remove(String member) {
+        if (!members.remove(member)) return;
+        for (int i = 0; i < VIRTUAL_NODES; i++) {
+            ring.remove(hash(member + "#" + i), member);
+        }
+    }
+
+    /**
+     * Finds the member that owns an item.
+     *
+     * @param itemId the item ID
+     * @return the owning member, or null if the ring is empty
+     */
+    public synchronized String ownerOf(int itemId) {
+        if (ring.isEmpty()) return null;
+        Map.Entry<Integer, String> entry = ring.ceilingEntry(mix(itemId));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * @return the current members in the order they joined
+     */
+    public synchronized List<String> getMembers() {
+        return new ArrayList<>(members);
+    }
+
+    private static int hash(String key) {
+        int h = 0x811c9dc5;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ b) * 0x01000193;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Scrambles the bits of a key so sequential item IDs land far apart on the ring.
+     */
+    private static int mix(int key) {
+        key ^= key >>> 16;
+        key *= 0x85ebca6b;
+        key ^= key >>> 13;
+        key *= 0xc2b2ae35;
+        key ^= key >>> 16;
+        return key;
+    }
+}
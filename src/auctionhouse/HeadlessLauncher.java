@@ -0,0 +1,81 @@
+package auctionhouse;
+
+import shared.BankClient;
+import shared.SharedMemoryBankClient;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launches the auction house without a GUI, for servers with no display.
+ * Takes the same arguments and {@code auction.*} options as {@link AuctionLauncher}
+ * but loads no JavaFX classes. Status is logged to standard output at a fixed
+ * interval and is also available through the admin commands.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class HeadlessLauncher {
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: java HeadlessLauncher <bankHost> <bankPort> <auctionPort> [bidLogFile]");
+            System.exit(1);
+        }
+
+        String bankHost = args[0];
+        int bankPort = Integer.parseInt(args[1]);
+        int auctionPort = Integer.parseInt(args[2]);
+
+        AuctionHouse house;
+        try {
+            BankClient bankClient = SharedMemoryBankClient.connect(bankHost, bankPort);
+
+            ItemManager itemManager = new ItemManager();
+            itemManager.loadItemsFromResource("items.txt");
+
+            house = new AuctionHouse(auctionPort, bankClient, itemManager);
+            house.configure(System.getProperties());
+
+            if (args.length > 3) {
+                BidLog bidLog = new BidLog(Path.of(args[3]));
+                itemManager.restore(bidLog, house);
+                Runtime.getRuntime().addShutdownHook(new Thread(bidLog::close));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to launch auction house: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        AdminCommands admin = new AdminCommands(house);
+        long statusInterval = Long.getLong("auction.status.intervalSec", 60);
+        ScheduledExecutorService statusLogger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "status-logger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (statusInterval > 0) {
+            statusLogger.scheduleAtFixedRate(() -> System.out.println(admin.status()),
+                    statusInterval, statusInterval, TimeUnit.SECONDS);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(house::shutdown));
+
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("Auction house starting on port %d (JVM up %d ms, heap used %d KB)%n",
+                auctionPort, ManagementFactory.getRuntimeMXBean().getUptime(),
+                (runtime.totalMemory() - runtime.freeMemory()) / 1024);
+
+        // Blocks until the house is shut down
+        house.start();
+        statusLogger.shutdownNow();
+        System.exit(house.getAccountId() < 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,83 @@
+package auctionhouse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Latency histograms and gauges describing how an auction house is performing.
+ * Histograms are recorded on the hot path; gauges are read from the house only
+ * when a snapshot is taken, for the admin {@code STATS} command or the periodic
+ * {@code METRICS} dump.
+ * <ul>
+ *     <li>{@code bid} – BID received to outcome sent</li>
+ *     <li>{@code lockWait} – time spent waiting for an item's monitor</li>
+ *     <li>{@code broadcastLag} – line queued for an agent to line taken for writing</li>
+ *     <li>{@code bank.<operation>} – bank round trip, per operation</li>
+ * </ul>
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class HouseMetrics {
+
+    private final LatencyHistogram bidLatency = new LatencyHistogram();
+    private final LatencyHistogram lockWait = new LatencyHistogram();
+    private final LatencyHistogram broadcastLag = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> bankCalls = new ConcurrentSkipListMap<>();
+
+    /**
+     * @return the histogram of BID-to-outcome latency
+     */
+    public LatencyHistogram bidLatency() {
+        return bidLatency;
+    }
+
+    /**
+     * @return the histogram of item monitor wait times
+     */
+    public LatencyHistogram lockWait() {
+        return lockWait;
+    }
+
+    /**
+     * @return the histogram of queue-to-write lag for agent lines
+     */
+    public LatencyHistogram broadcastLag() {
+        return broadcastLag;
+    }
+
+    /**
+     * Returns the round-trip histogram for one bank operation, creating it on
+     * first use. Callers look it up once and keep the reference.
+     *
+     * @param operation the bank operation name
+     * @return the histogram for that operation
+     */
+    public LatencyHistogram bankCall(String operation) {
+        return bankCalls.computeIfAbsent(operation, op -> new LatencyHistogram());
+    }
+
+    /**
+     * Builds one line of {@code key=value} fields: the gauges, then every histogram.
+     *
+     * @param house the house whose gauges are read
+     * @return the fields, space separated
+     */
+    public String snapshot(AuctionHouse house) {
+        ItemManager itemManager = house.getItemManager();
+        StringBuilder fields = new StringBuilder()
+                .append("agents=").append(house.getAgentIds().size())
+                .append(" activeItems=").append(itemManager.getActiveCount())
+                .append(" pendingItems=").append(itemManager.getPendingCount())
+                .append(" timers=").append(itemManager.getTimerCount())
+                .append(' ').append(bidLatency.describe("bid"))
+                .append(' ').append(lockWait.describe("lockWait"))
+                .append(' ').append(broadcastLag.describe("broadcastLag"));
+        for (Map.Entry<String, LatencyHistogram> entry : bankCalls.entrySet()) {
+            fields.append(' ').append(entry.getValue().describe("bank." + entry.getKey()));
+        }
+        return fields.toString();
+    }
+}
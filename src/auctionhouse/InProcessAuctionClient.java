@@ -0,0 +1,112 @@
+package auctionhouse;
+
+import shared.LineAuctionClient;
+import shared.LineQueue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Agent-side client for an auction house in the same JVM, for simulations
+ * and benchmarks that run the whole system in one process. Each command is
+ * handed straight to an {@link AgentHandler} on the calling thread, and the
+ * handler's replies and broadcasts are queued for the agent's reader, so the
+ * agent sees exactly the protocol a socket agent sees without any socket,
+ * byte encoding or I/O thread in between.
+ * <p>
+ * The host and port given to {@link #connect(String, int, int)} are ignored;
+ * the client always reaches the house it was created for. Nothing limits how
+ * far an agent may fall behind in reading, so backpressure settings do not
+ * apply to these connections.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class InProcessAuctionClient extends LineAuctionClient {
+
+    private final AuctionHouse auctionHouse;
+    private AgentHandler handler;
+    private LineQueue replies;
+
+    /**
+     * @param auctionHouse the house this client connects to
+     */
+    public InProcessAuctionClient(AuctionHouse auctionHouse) {
+        this.auctionHouse = auctionHouse;
+    }
+
+    @Override
+    protected BufferedReader openTransport(String host, int port) {
+        replies = new LineQueue();
+        handler = new AgentHandler(new QueueConnection(replies), auctionHouse.getItemManager(),
+                auctionHouse.getBankClient(), auctionHouse);
+        return replies.reader();
+    }
+
+    /**
+     * Runs one command on the handler. Commands from different threads are
+     * run one at a time, as the house does for lines read from one socket.
+     *
+     * @throws IOException if the connection has been closed
+     */
+    @Override
+    protected void sendLine(String line) throws IOException {
+        if (replies == null || replies.isClosed()) {
+            throw new IOException("Connection closed");
+        }
+        synchronized (handler) {
+            handler.handleLine(line);
+        }
+    }
+
+    @Override
+    protected void closeTransport() {
+        if (replies != null && !replies.isClosed()) {
+            handler.close();
+        }
+    }
+
+    /**
+     * Replies are never serialized, so packing them would only cost time.
+     */
+    @Override
+    protected boolean requestsCompression() {
+        return false;
+    }
+
+    /**
+     * Outbound side of an in-process connection: every line goes straight
+     * onto the agent's queue.
+     */
+    private static class QueueConnection implements AgentConnection {
+
+        private final LineQueue replies;
+
+        QueueConnection(LineQueue replies) {
+            this.replies = replies;
+        }
+
+        @Override
+        public boolean send(String line, int coalesceKey) {
+            replies.add(line);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            replies.close();
+        }
+
+        @Override
+        public void closeNow() {
+            replies.close();
+        }
+
+        @Override
+        public long getLagMillis() {
+            return 0;
+        }
+    }
+}
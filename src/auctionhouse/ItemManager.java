@@ -1,8 +1,13 @@
 package auctionhouse;
 
+import shared.ListQuery;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 /**
  * Manages the lifecycle of auction items.
@@ -15,21 +20,56 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class ItemManager {
 
-    private final Map<Integer, AuctionItem> activeItems;
+    /**
+     * One page of a LIST reply.
+     *
+     * @param items  the items on the page
+     * @param cursor where the next page starts, or null if the listing is exhausted
+     */
+    public record Page(List<AuctionItem> items, String cursor) {
+    }
+
+    /**
+     * Told whose funds an item's leading bid holds, each time that changes.
+     */
+    @FunctionalInterface
+    public interface HoldListener {
+
+        /**
+         * @param itemId  the item
+         * @param agentId the leading bidder, or -1 once the item holds no funds
+         * @param amount  the amount held, or 0
+         */
+        void holdChanged(int itemId, int agentId, int amount);
+    }
+
+    private final ConcurrentNavigableMap<Integer, AuctionItem> activeItems;
+    private final ConcurrentNavigableMap<Long, AuctionItem> activeByPrice;
     private final Queue<AuctionItem> pendingItems;
-    private final List<AuctionItem> soldItems;
+    private volatile SoldArchive soldArchive = new SoldArchive(null, 256);
+    private volatile PriceHistory priceHistory = new PriceHistory(32);
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final ItemStore store = new ItemStore();
     private final AtomicInteger nextItemId;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private static final long AUCTION_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final int ACTIVE_ITEMS = 3;
+    // Items skipped by a price filter on an ID-ordered page before it ends early
+    private static final int MAX_SCAN = 2000;
     private final ScheduledExecutorService auctionTimerService =
             Executors.newScheduledThreadPool(4);
     private final Map<Integer, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
+    private volatile BidLog bidLog;
+    private volatile IntConsumer soldListener;
+    private volatile HoldListener holdListener;
 
     /**
      * Initializes item containers and ID counter.
      */
     public ItemManager() {
-        this.activeItems = new ConcurrentHashMap<>();
+        this.activeItems = new ConcurrentSkipListMap<>();
+        this.activeByPrice = new ConcurrentSkipListMap<>();
         this.pendingItems = new ConcurrentLinkedQueue<>();
-        this.soldItems = Collections.synchronizedList(new ArrayList<>());
         this.nextItemId = new AtomicInteger(1);
     }
 
@@ -40,11 +80,20 @@ public class ItemManager {
      * @param resourceName the name of the item resource file (e.g., "items.txt")
      */
     public void loadItemsFromResource(String resourceName) {
+        loadItems(Objects.requireNonNull(getClass().getClassLoader().
+                getResourceAsStream(resourceName)));
+    }
+
+    /**
+     * Loads auction items, one {@code description,minimumBid} per line, and
+     * activates up to 3 of them.
+     *
+     * @param in the item list, closed once read
+     */
+    void loadItems(InputStream in) {
         List<AuctionItem> all = new ArrayList<>();
 
-        try (Scanner scanner = new Scanner(
-                Objects.requireNonNull(getClass().getClassLoader().
-                        getResourceAsStream(resourceName)))) {
+        try (Scanner scanner = new Scanner(in)) {
 
             while (scanner.hasNextLine()) {
                 String line = scanner.nextLine().trim();
@@ -54,9 +103,10 @@ public class ItemManager {
                 if (parts.length == 2) {
                     String desc = parts[0].trim();
                     int minBid = Integer.parseInt(parts[1].trim());
-                    AuctionItem item = new AuctionItem(nextItemId.getAndIncrement(),
+                    AuctionItem item = store.add(nextItemId.getAndIncrement(),
                             desc, minBid);
                     all.add(item);
+                    searchIndex.add(item);
                 }
             }
 
@@ -64,10 +114,8 @@ public class ItemManager {
             pendingItems.addAll(all);
 
             // Activate up to 3 items initially
-            for (int i = 0; i < 3 && !pendingItems.isEmpty(); i++) {
-                AuctionItem item = pendingItems.poll();
-                item.setActive(true);
-                activeItems.put(item.getItemId(), item);
+            for (int i = 0; i < ACTIVE_ITEMS && !pendingItems.isEmpty(); i++) {
+                activate(pendingItems.poll());
             }
         }
     }
@@ -80,16 +128,128 @@ public class ItemManager {
     }
 
     /**
-     * @return a combined list of all items (active, pending, and sold)
+     * Returns one page of active items matching the query, read from the
+     * ID-ordered or price-ordered index so the cost is proportional to the page.
+     * Price bounds on an ID-ordered query are applied as a filter while
+     * scanning; at most {@link #MAX_SCAN} items are looked at, and if that
+     * many are skipped before the page fills, the page ends early with a
+     * cursor at the last item looked at.
+     *
+     * @param query the sort order, price range, cursor, and page size
+     * @return the matching items in the requested order, and where the next page starts
+     * @throws IllegalArgumentException if the query cursor is malformed
+     */
+    public Page getAvailableItems(ListQuery query) {
+        int min = query.getMinPrice();
+        int max = query.getMaxPrice();
+        Collection<AuctionItem> ordered;
+
+        switch (query.getSort()) {
+            case PRICE -> {
+                Long after = query.afterPriceKey();
+                long low = ListQuery.priceKey(min, 0);
+                ordered = (after != null && after >= low
+                        ? activeByPrice.tailMap(after, false)
+                        : activeByPrice.tailMap(low, true)).values();
+            }
+            case PRICE_DESC -> {
+                Long after = query.afterPriceKey();
+                long high = ListQuery.priceKey(max, -1);
+                ordered = (after != null && after <= high
+                        ? activeByPrice.headMap(after, false)
+                        : activeByPrice.headMap(high, true)).descendingMap().values();
+            }
+            default -> ordered = activeItems.tailMap(query.afterId(), false).values();
+        }
+
+        List<AuctionItem> page = new ArrayList<>(Math.min(query.getLimit(), 64));
+        int scanned = 0;
+        for (AuctionItem item : ordered) {
+            int price = item.getPrice();
+            if (price < min || price > max) {
+                if (query.getSort() != ListQuery.Sort.ID) break;
+                if (++scanned >= MAX_SCAN) {
+                    return new Page(page, String.valueOf(item.getItemId()));
+                }
+                continue;
+            }
+            page.add(item);
+            if (page.size() >= query.getLimit()) {
+                return new Page(page, ListQuery.cursorFor(query.getSort(), item.getItemId(), price));
+            }
+        }
+        return new Page(page, null);
+    }
+
+    /**
+     * @return the active items followed by the pending ones; sold items are
+     * kept only in the {@link SoldArchive}
      */
     public List<AuctionItem> getAllItems() {
-        List<AuctionItem> allItems = new ArrayList<>();
+        List<AuctionItem> items = new ArrayList<>(activeItems.values());
+        items.addAll(pendingItems);
+        return items;
+    }
+
+    /**
+     * @return the number of items currently up for auction
+     */
+    public int getActiveCount() {
+        return activeItems.size();
+    }
+
+    /**
+     * @return the number of items waiting to be auctioned
+     */
+    public int getPendingCount() {
+        return pendingItems.size();
+    }
+
+    /**
+     * @return the number of items sold so far
+     */
+    public int getSoldCount() {
+        return (int) soldArchive.size();
+    }
+
+    /**
+     * Replaces the archive that sold items are recorded in. Call before
+     * {@link #restore} so replayed sales land in the new archive.
+     *
+     * @param archive the archive to record sales in
+     */
+    public void setSoldArchive(SoldArchive archive) {
+        this.soldArchive = archive;
+    }
 
-        allItems.addAll(activeItems.values());
-        allItems.addAll(pendingItems);
-        allItems.addAll(soldItems);
+    /**
+     * @return the archive of settled sales
+     */
+    public SoldArchive getSoldArchive() {
+        return soldArchive;
+    }
 
-        return allItems;
+    /**
+     * Replaces the per-item bid history. Must be called before agents connect.
+     *
+     * @param history the history to record accepted bids in
+     */
+    public void setPriceHistory(PriceHistory history) {
+        this.priceHistory = history;
+    }
+
+    /**
+     * @return the recent bid history of the active items
+     */
+    public PriceHistory getPriceHistory() {
+        return priceHistory;
+    }
+
+    /**
+     * @return the number of auction timers currently scheduled
+     */
+    public int getTimerCount() {
+        return timers.size();
     }
 
     /**
@@ -102,6 +262,76 @@ public class ItemManager {
         return activeItems.get(itemId);
     }
 
+    /**
+     * Searches the descriptions of active and pending items.
+     *
+     * @param query free text to search for
+     * @param limit the maximum number of hits to return
+     * @return ranked hits, best first
+     */
+    public List<SearchIndex.Hit> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Places a bid on an active item and keeps the price index in step with it.
+     * Callers must hold the item's monitor.
+     *
+     * @param item      the item being bid on
+     * @param agentId   the ID of the bidding agent
+     * @param bidAmount the amount of the bid
+     */
+    public void recordBid(AuctionItem item, int agentId, int bidAmount) {
+        long oldKey = ListQuery.priceKey(item.getPrice(), item.getItemId());
+        int prevBidder = item.getCurrentBidderId();
+        if (prevBidder != -1) {
+            log(BidLog.OUTBID, item.getItemId(), prevBidder, item.getCurrentBid());
+        }
+        item.placeBid(agentId, bidAmount);
+        log(BidLog.BID_ACCEPTED, item.getItemId(), agentId, bidAmount);
+        holdChanged(item.getItemId(), agentId, bidAmount);
+        priceHistory.record(item.getItemId(), System.currentTimeMillis(), agentId, bidAmount);
+        if (activeItems.containsKey(item.getItemId())) {
+            activeByPrice.remove(oldKey);
+            activeByPrice.put(ListQuery.priceKey(item.getPrice(), item.getItemId()), item);
+        }
+    }
+
+    /**
+     * Clears every active bid held by an agent and cancels those items' timers.
+     * The items stay active and open to other bidders.
+     *
+     * @param agentId the agent whose bids are released
+     * @return each released item with the amount that was held for it
+     */
+    public Map<AuctionItem, Integer> releaseBidsOf(int agentId) {
+        Map<AuctionItem, Integer> released = new LinkedHashMap<>();
+        for (AuctionItem item : activeItems.values()) {
+            if (item.getCurrentBidderId() != agentId) continue;
+
+            synchronized (item) {
+                if (item.isSold() || item.getCurrentBidderId() != agentId) continue;
+
+                int amount = item.getCurrentBid();
+                ScheduledFuture<?> timer = timers.remove(item.getItemId());
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+
+                long oldKey = ListQuery.priceKey(item.getPrice(), item.getItemId());
+                item.clearBid();
+                if (activeItems.containsKey(item.getItemId())) {
+                    activeByPrice.remove(oldKey);
+                    activeByPrice.put(ListQuery.priceKey(item.getPrice(), item.getItemId()), item);
+                }
+                log(BidLog.RELEASED, item.getItemId(), agentId, amount);
+                holdChanged(item.getItemId(), -1, 0);
+                released.put(item, amount);
+            }
+        }
+        return released;
+    }
+
     /**
      * Starts or restarts the auction timer for a given item.
      * When time expires, the highest bidder is declared the winner.
@@ -110,6 +340,17 @@ public class ItemManager {
      * @param house reference to the AuctionHouse for callback purposes
      */
     public void startAuctionTimer(AuctionItem item, AuctionHouse house) {
+        scheduleAuctionEnd(item, house, System.currentTimeMillis() + AUCTION_MILLIS);
+    }
+
+    /**
+     * Schedules the end of an item's auction at a fixed time, replacing any existing timer.
+     *
+     * @param item     the item being auctioned
+     * @param house    reference to the AuctionHouse for callback purposes
+     * @param deadline the time in epoch milliseconds at which the auction ends
+     */
+    private void scheduleAuctionEnd(AuctionItem item, AuctionHouse house, long deadline) {
         int itemId = item.getItemId();
 
         // Cancel any existing timer
@@ -118,52 +359,313 @@ public class ItemManager {
             existing.cancel(false);
         }
 
-        // Schedule auction to end in 30 seconds
-        ScheduledFuture<?> future = auctionTimerService.schedule(() -> {
-            synchronized (item) {
-                if (item.isSold()) return;
+        long delay = Math.max(0, deadline - System.currentTimeMillis());
+        ScheduledFuture<?> future = auctionTimerService.schedule(
+                () -> closeAuction(item, house), delay, TimeUnit.MILLISECONDS);
 
-                int winnerId = item.getCurrentBidderId();
-                int amount = item.getCurrentBid();
-                if (winnerId == -1) return;
+        timers.put(itemId, future);
+        // A timer that already sold the item has nothing left to cancel
+        if (item.isSold()) {
+            timers.remove(itemId, future);
+        }
+    }
 
-                item.markAsSold();
-                markItemAsSold(itemId, house);
+    /**
+     * Ends an item's auction: if it has a leading bid, sells it to that bidder,
+     * replaces it with a pending item (if any), queues the payment and tells
+     * the winner. This is what an auction timer runs when it fires. The sale is
+     * a single atomic flag transition, so concurrent calls for the same item
+     * sell it once, and calls for different items do not wait on each other.
+     *
+     * @param item  the item whose auction ends
+     * @param house the auction house managing this item
+     * @return true if this call sold the item
+     */
+    boolean closeAuction(AuctionItem item, AuctionHouse house) {
+        int itemId = item.getItemId();
+        BidEvents.TimerFired fired = new BidEvents.TimerFired();
+        fired.begin();
+        int winnerId;
+        int amount;
+        // Bids change the item under its monitor, so closing under it too
+        // picks the winner after any bid in progress. Only the transition
+        // happens here; retiring and notifying run after the monitor is released.
+        synchronized (item) {
+            winnerId = item.getCurrentBidderId();
+            amount = item.getCurrentBid();
+            if (winnerId == -1 || !item.tryMarkSold()) {
+                fired.complete(itemId, -1, 0);
+                return false;
+            }
+        }
+        fired.complete(itemId, winnerId, amount);
+        retireSold(item, house);
+
+        // The house collects the held funds itself, so a winner that is
+        // slow or gone still pays
+        house.getSettlementQueue().submit(itemId, winnerId, amount);
+        house.notifyWinner(winnerId, amount, itemId);
+
+        System.out.printf("Auction ended: item %d sold to agent %d for %d\n",
+                itemId, winnerId, amount);
+        return true;
+    }
+
+    /**
+     * Removes an item that has just been marked sold from the active set and
+     * indexes, records the sale, and only then notifies agents, the partition
+     * router and the GUI. Runs without holding any item or manager monitor.
+     *
+     * @param sold  the item, already transitioned to sold
+     * @param house the auction house managing this item
+     */
+    private void retireSold(AuctionItem sold, AuctionHouse house) {
+        int itemId = sold.getItemId();
+        // A sold item takes no more bids, so its timer is never rescheduled
+        ScheduledFuture<?> timer = timers.remove(itemId);
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        if (activeItems.remove(itemId, sold)) {
+            activeCount.decrementAndGet();
+        }
+        activeByPrice.remove(ListQuery.priceKey(sold.getPrice(), itemId));
+        searchIndex.remove(itemId);
+        priceHistory.remove(itemId);
+        soldArchive.add(itemId, sold.getCurrentBidderId(), sold.getCurrentBid(),
+                System.currentTimeMillis());
+        store.remove(sold);
+        log(BidLog.SOLD, itemId, sold.getCurrentBidderId(), sold.getCurrentBid());
 
-                AgentHandler handler = house.getAgentHandler(winnerId);
-                if (handler != null) {
-                    handler.sendWinnerNotification(amount, itemId);
+        IntConsumer listener = soldListener;
+        if (listener != null) {
+            listener.accept(itemId);
+        }
+        house.broadcastItemSold(itemId);
+
+        // Replace with a pending item, if available
+        fillActive(house);
+        house.notifyItemsChanged();
+    }
+
+    /**
+     * Takes ownership of catalog items assigned to this house by a partition router.
+     * Unsold items not already held are queued as pending and indexed for search,
+     * and the active set is topped up from the pending queue.
+     *
+     * @param itemIds the IDs of the items to adopt
+     * @param house   the auction house that broadcasts newly activated items
+     */
+    public synchronized void adopt(Collection<Integer> itemIds, AuctionHouse house) {
+        Set<Integer> wanted = new HashSet<>(itemIds);
+        Set<AuctionItem> held = new HashSet<>(pendingItems);
+        for (AuctionItem item : store.getAllItems()) {
+            if (!wanted.contains(item.getItemId()) || item.isSold()
+                    || item.isActive() || held.contains(item)) continue;
+            pendingItems.add(item);
+            searchIndex.add(item);
+        }
+        fillActive(house);
+        house.notifyItemsChanged();
+    }
+
+    /**
+     * Gives up catalog items that a partition router has moved to another house.
+     * Pending items and active items without a bid are released; items with a
+     * bid in progress are kept until their auction ends.
+     *
+     * @param itemIds the IDs of the items to release
+     * @param house   the auction house that tells agents which items left and
+     *                broadcasts replacement items, or null
+     * @return the IDs that were actually released
+     */
+    public synchronized List<Integer> release(Collection<Integer> itemIds, AuctionHouse house) {
+        Set<Integer> unwanted = new HashSet<>(itemIds);
+        List<Integer> released = new ArrayList<>();
+        // Only active items were ever shown to agents
+        List<Integer> withdrawn = new ArrayList<>();
+
+        for (Iterator<AuctionItem> it = pendingItems.iterator(); it.hasNext(); ) {
+            AuctionItem item = it.next();
+            if (unwanted.contains(item.getItemId())) {
+                it.remove();
+                searchIndex.remove(item.getItemId());
+                released.add(item.getItemId());
+            }
+        }
+
+        for (int itemId : unwanted) {
+            AuctionItem item = activeItems.get(itemId);
+            if (item == null) continue;
+
+            synchronized (item) {
+                if (item.isSold() || item.getCurrentBidderId() != -1) continue;
+                if (activeItems.remove(itemId, item)) {
+                    activeCount.decrementAndGet();
                 }
+                activeByPrice.remove(ListQuery.priceKey(item.getPrice(), itemId));
+                item.setActive(false);
+                searchIndex.remove(itemId);
+                priceHistory.remove(itemId);
+                released.add(itemId);
+                withdrawn.add(itemId);
+            }
+        }
+
+        if (house != null) {
+            for (int itemId : released.subList(0, released.size() - withdrawn.size())) {
+                house.notifyItemChanged(itemId);
+            }
+            for (int itemId : withdrawn) {
+                house.broadcastItemRemoved(itemId);
+            }
+            fillActive(house);
+            if (!released.isEmpty()) {
+                house.notifyItemsChanged();
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Registers a callback run with the item ID whenever an item is sold.
+     *
+     * @param listener the callback, or null to remove it
+     */
+    public void setSoldListener(IntConsumer listener) {
+        this.soldListener = listener;
+    }
 
-                System.out.printf("Auction ended: item %d sold to agent %d for %d\n",
-                        itemId, winnerId, amount);
+    /**
+     * Registers a callback run whenever an item's leading bid, and so the
+     * funds it holds, changes. A sale is reported to the sold listener instead.
+     *
+     * @param listener the callback, or null to remove it
+     */
+    public void setHoldListener(HoldListener listener) {
+        this.holdListener = listener;
+    }
+
+    private void holdChanged(int itemId, int agentId, int amount) {
+        HoldListener listener = holdListener;
+        if (listener != null) {
+            listener.holdChanged(itemId, agentId, amount);
+        }
+    }
+
+    /**
+     * Activates pending items until the active set is full, announcing each one.
+     */
+    private void fillActive(AuctionHouse house) {
+        boolean changed = false;
+        while (!pendingItems.isEmpty()) {
+            // Reserve a slot first so concurrent callers cannot overfill the active set
+            int count = activeCount.get();
+            if (count >= ACTIVE_ITEMS) break;
+            if (!activeCount.compareAndSet(count, count + 1)) continue;
+
+            AuctionItem next = pendingItems.poll();
+            if (next == null || !next.tryActivate()) {
+                activeCount.decrementAndGet();
+                continue;
             }
-        }, 30, TimeUnit.SECONDS);
+            index(next);
+            house.broadcastItemUpdate(next);
+            changed = true;
+        }
+        if (changed) {
+            house.notifyItemsChanged();
+        }
+    }
 
-        timers.put(itemId, future);
+    /**
+     * Moves an item into the active set and both listing indexes.
+     *
+     * @param item the item to activate
+     */
+    private void activate(AuctionItem item) {
+        item.setActive(true);
+        activeCount.incrementAndGet();
+        index(item);
     }
 
     /**
-     * Marks an item as sold, replaces it with a pending item (if any), and updates the UI.
+     * Adds an item that is already flagged active to the active set and both
+     * listing indexes.
+     */
+    private void index(AuctionItem item) {
+        activeItems.put(item.getItemId(), item);
+        activeByPrice.put(ListQuery.priceKey(item.getPrice(), item.getItemId()), item);
+        log(BidLog.ACTIVATED, item.getItemId(), -1, 0);
+    }
+
+    /**
+     * Rebuilds auction state from a bid log, then records all further events to it.
+     * Must be called after items are loaded and before agents connect. If the
+     * log holds earlier events, the initial active set is replaced by the replayed
+     * one, sold items are retired, and timers for items with bids are restarted
+     * from their recorded bid times.
      *
-     * @param itemId the ID of the item that was sold
-     * @param house  the auction house managing this item
+     * @param log   the log to replay and append to
+     * @param house the auction house that receives auction-end callbacks
+     * @throws IOException if the log cannot be read
      */
-    public synchronized void markItemAsSold(int itemId, AuctionHouse house) {
-        AuctionItem sold = activeItems.remove(itemId);
-        if (sold != null) {
-            sold.markAsSold();
-            soldItems.add(sold);
+    public void restore(BidLog log, AuctionHouse house) throws IOException {
+        Map<Integer, BidLog.ItemState> states = log.replay();
+
+        if (!states.isEmpty()) {
+            // A persistent archive already holds the sales replayed here
+            boolean archiveSales = soldArchive.size() == 0;
+            for (AuctionItem item : new ArrayList<>(activeItems.values())) {
+                activeItems.remove(item.getItemId());
+                activeCount.decrementAndGet();
+                activeByPrice.remove(ListQuery.priceKey(item.getPrice(), item.getItemId()));
+                item.setActive(false);
+                pendingItems.add(item);
+            }
 
-            house.broadcastItemSold(itemId);
+            // Taken out of the pending queue in one pass once replay is done
+            Set<Integer> replayed = new HashSet<>();
+            for (AuctionItem item : store.getAllItems()) {
+                BidLog.ItemState state = states.get(item.getItemId());
+                if (state == null) continue;
 
-            // Replace with a pending item, if available
-            if (!pendingItems.isEmpty()) {
-                AuctionItem next = pendingItems.poll();
-                activeItems.put(next.getItemId(), next);
-                house.broadcastItemUpdate(next);
+                if (state.sold) {
+                    replayed.add(item.getItemId());
+                    item.placeBid(state.bidderId, state.amount);
+                    item.markAsSold();
+                    if (archiveSales) {
+                        soldArchive.add(item.getItemId(), state.bidderId, state.amount, state.soldAt);
+                    }
+                    searchIndex.remove(item.getItemId());
+                    store.remove(item);
+                } else if (state.active) {
+                    replayed.add(item.getItemId());
+                    activate(item);
+                    if (state.bidderId != -1) {
+                        recordBid(item, state.bidderId, state.amount);
+                        scheduleAuctionEnd(item, house, state.lastBidAt + AUCTION_MILLIS);
+                    }
+                }
+            }
+            pendingItems.removeIf(item -> replayed.contains(item.getItemId()));
+        }
+
+        bidLog = log;
+        if (states.isEmpty()) {
+            for (AuctionItem item : activeItems.values()) {
+                log(BidLog.ACTIVATED, item.getItemId(), -1, 0);
             }
-            house.triggerUpdate();
+        }
+    }
+
+    /**
+     * Appends an event to the bid log, if one is attached.
+     */
+    private void log(byte type, int itemId, int agentId, int amount) {
+        BidLog log = bidLog;
+        if (log != null) {
+            log.append(type, itemId, agentId, amount);
         }
     }
 
@@ -173,8 +675,11 @@ public class ItemManager {
      * @return true if at least one auction is active; false otherwise
      */
     public boolean hasActiveAuctions() {
-        return activeItems.values().stream().anyMatch(item ->
-                !item.isSold() && item.getCurrentBidderId() != -1
-        );
+        for (AuctionItem item : activeItems.values()) {
+            if (item.getCurrentBidderId() != -1 && !item.isSold()) {
+                return true;
+            }
+        }
+        return false;
     }
 }
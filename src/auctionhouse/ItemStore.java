@@ -0,0 +1,217 @@
+package auctionhouse;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented storage for auction item state.
+ * Each item occupies one row; its ID, bids, bidder and status flags live in
+ * primitive arrays, and descriptions are interned into a shared pool.
+ * {@link AuctionItem} objects are flyweight views over a row, created once per
+ * row so their monitors can still be used for per-item locking.
+ * <p>
+ * This is a storage layout only: it keeps a large catalog compact. Listing,
+ * searching and checking for open auctions go through {@link ItemManager}'s
+ * active and pending sets, which hold the few items in play, rather than
+ * scanning these columns.
+ * <p>
+ * Rows are allocated in fixed-size pages that are never copied or moved, so
+ * growth does not invalidate concurrent readers or lose concurrent writes.
+ * Sold items are removed once they move to the {@link SoldArchive}; their rows
+ * are not reused, so a view still held elsewhere keeps reading the final state.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class ItemStore {
+
+    static final int FLAG_ACTIVE = 1;
+    static final int FLAG_SOLD = 1 << 1;
+
+    private static final VarHandle FLAGS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * One page of rows, stored column by column.
+     */
+    private static final class Page {
+        final int[] itemIds = new int[PAGE_SIZE];
+        final int[] descriptionRefs = new int[PAGE_SIZE];
+        final int[] minimumBids = new int[PAGE_SIZE];
+        final int[] currentBids = new int[PAGE_SIZE];
+        final int[] bidderIds = new int[PAGE_SIZE];
+        final int[] flags = new int[PAGE_SIZE];
+        final AuctionItem[] views = new AuctionItem[PAGE_SIZE];
+    }
+
+    private volatile Page[] pages = new Page[0];
+    private volatile int size = 0;
+    private volatile String[] descriptionPool = new String[16];
+    private int poolSize = 0;
+    private final Map<String, Integer> descriptionRefs = new HashMap<>();
+
+    /**
+     * Appends a new unsold, inactive item with no bids.
+     *
+     * @param itemId      unique identifier for the item
+     * @param description text description of the item
+     * @param minimumBid  minimum acceptable bid for this item
+     * @return the view over the new row
+     */
+    public synchronized AuctionItem add(int itemId, String description, int minimumBid) {
+        int row = size;
+        int pageIndex = row >>> PAGE_BITS;
+        if (pageIndex == pages.length) {
+            Page[] grown = new Page[pageIndex + 1];
+            System.arraycopy(pages, 0, grown, 0, pages.length);
+            grown[pageIndex] = new Page();
+            pages = grown;
+        }
+
+        Page page = pages[pageIndex];
+        int slot = row & PAGE_MASK;
+        page.itemIds[slot] = itemId;
+        page.descriptionRefs[slot] = intern(description);
+        page.minimumBids[slot] = minimumBid;
+        page.currentBids[slot] = 0;
+        page.bidderIds[slot] = -1;
+        page.flags[slot] = 0;
+        page.views[slot] = new AuctionItem(this, row);
+
+        size = row + 1;
+        return page.views[slot];
+    }
+
+    /**
+     * @return the number of rows in the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return views over every row that has not been removed, in insertion order
+     */
+    public List<AuctionItem> getAllItems() {
+        int count = size;
+        Page[] snapshot = pages;
+        List<AuctionItem> items = new ArrayList<>(count);
+        for (int row = 0; row < count; row++) {
+            AuctionItem view = snapshot[row >>> PAGE_BITS].views[row & PAGE_MASK];
+            if (view != null) {
+                items.add(view);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Removes an item that has left the house, such as one moved to the sold
+     * archive. Its view is dropped and it no longer appears in
+     * {@link #getAllItems()}.
+     *
+     * @param item the view over the row to remove
+     */
+    public synchronized void remove(AuctionItem item) {
+        int row = item.row();
+        page(row).views[row & PAGE_MASK] = null;
+    }
+
+    int itemId(int row) {
+        return page(row).itemIds[row & PAGE_MASK];
+    }
+
+    String description(int row) {
+        return descriptionPool[page(row).descriptionRefs[row & PAGE_MASK]];
+    }
+
+    int minimumBid(int row) {
+        return page(row).minimumBids[row & PAGE_MASK];
+    }
+
+    int currentBid(int row) {
+        return page(row).currentBids[row & PAGE_MASK];
+    }
+
+    int bidderId(int row) {
+        return page(row).bidderIds[row & PAGE_MASK];
+    }
+
+    boolean hasFlag(int row, int flag) {
+        return ((int) FLAGS.getAcquire(page(row).flags, row & PAGE_MASK) & flag) != 0;
+    }
+
+    void setBid(int row, int bidderId, int amount) {
+        Page page = page(row);
+        page.currentBids[row & PAGE_MASK] = amount;
+        page.bidderIds[row & PAGE_MASK] = bidderId;
+    }
+
+    void setFlag(int row, int flag, boolean on) {
+        int[] flags = page(row).flags;
+        int slot = row & PAGE_MASK;
+        int current;
+        do {
+            current = (int) FLAGS.getVolatile(flags, slot);
+        } while (!FLAGS.compareAndSet(flags, slot, current, on ? current | flag : current & ~flag));
+    }
+
+    /**
+     * Atomically changes a row's flags if the bits selected by {@code mask}
+     * currently equal {@code expected}. Of several threads attempting the same
+     * transition, exactly one succeeds.
+     *
+     * @param row      the row to change
+     * @param mask     the flag bits to check
+     * @param expected the required value of those bits
+     * @param set      the flags to turn on
+     * @param clear    the flags to turn off
+     * @return true if the transition was applied
+     */
+    boolean transition(int row, int mask, int expected, int set, int clear) {
+        int[] flags = page(row).flags;
+        int slot = row & PAGE_MASK;
+        while (true) {
+            int current = (int) FLAGS.getVolatile(flags, slot);
+            if ((current & mask) != expected) {
+                return false;
+            }
+            if (FLAGS.compareAndSet(flags, slot, current, (current | set) & ~clear)) {
+                return true;
+            }
+        }
+    }
+
+    private Page page(int row) {
+        return pages[row >>> PAGE_BITS];
+    }
+
+    /**
+     * Returns the pool index of a description, adding it if new.
+     * Callers must hold this store's monitor.
+     */
+    private int intern(String description) {
+        Integer ref = descriptionRefs.get(description);
+        if (ref == null) {
+            ref = poolSize++;
+            String[] pool = descriptionPool;
+            if (ref == pool.length) {
+                pool = Arrays.copyOf(pool, pool.length * 2);
+            }
+            pool[ref] = description;
+            descriptionPool = pool;
+            descriptionRefs.put(description, ref);
+        }
+        return ref;
+    }
+}
@@ -0,0 +1,82 @@
+package auctionhouse;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ * Recording costs a leading-zero count and two atomic adds, so it is cheap
+ * enough for the bid path; percentiles are reported as bucket upper bounds,
+ * accurate to within a factor of two and never above the largest value seen.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class LatencyHistogram {
+
+    // Bucket i holds values in [2^(i-1), 2^i) microseconds; bucket 0 holds 0
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one measured duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values count as zero
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        totalMicros.add(micros);
+        if (micros > maxMicros.get()) {
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    /**
+     * Describes the histogram as {@code key=value} fields for STATS and metric dumps.
+     * Concurrent recording may make the fields differ by the few values recorded
+     * while they were read.
+     *
+     * @param name the prefix for each key
+     * @return count, mean, p50, p90, p99 and max, in microseconds
+     */
+    public String describe(String name) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long mean = count == 0 ? 0 : totalMicros.sum() / count;
+        long max = maxMicros.get();
+        return name + ".count=" + count
+                + " " + name + ".meanUs=" + mean
+                + " " + name + ".p50Us=" + percentile(snapshot, count, 0.50, max)
+                + " " + name + ".p90Us=" + percentile(snapshot, count, 0.90, max)
+                + " " + name + ".p99Us=" + percentile(snapshot, count, 0.99, max)
+                + " " + name + ".maxUs=" + max;
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the quantile, capped at the maximum seen
+     */
+    private static long percentile(long[] snapshot, long count, double quantile, long max) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return i == 0 ? 0 : Math.min(max, (1L << i) - 1);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,345 @@
+package auctionhouse;
+
+import shared.BankClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selector-based server for agent connections.
+ * A small, fixed set of I/O threads each run one selector and serve many agents;
+ * complete lines are handed to a bounded worker pool that runs the usual
+ * {@link AgentHandler} logic, one line at a time per agent so replies stay in order.
+ * Outbound lines are queued per connection in an {@link OutboundBuffer} and
+ * written by the owning I/O thread with gathering writes.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class NioAgentServer {
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_GATHER = 64;
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private final AuctionHouse auctionHouse;
+    private final ItemManager itemManager;
+    private final BankClient bankClient;
+    private final IoLoop[] loops;
+    private final ExecutorService workers;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * Creates the I/O loops and worker pool. Nothing runs until {@link #serve} is called.
+     *
+     * @param auctionHouse  the auction house that owns the agents
+     * @param itemManager   the item manager used to access auction items
+     * @param bankClient    the client used to communicate with the bank
+     * @param ioThreads     the number of selector threads
+     * @param workerThreads the number of threads running agent commands
+     * @throws IOException if a selector cannot be opened
+     */
+    public NioAgentServer(AuctionHouse auctionHouse, ItemManager itemManager, BankClient bankClient,
+                          int ioThreads, int workerThreads) throws IOException {
+        this.auctionHouse = auctionHouse;
+        this.itemManager = itemManager;
+        this.bankClient = bankClient;
+        this.workers = Executors.newFixedThreadPool(workerThreads);
+        this.loops = new IoLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new IoLoop();
+        }
+    }
+
+    /**
+     * Starts the I/O threads and accepts connections on the calling thread
+     * until the server channel is closed.
+     *
+     * @param serverChannel a bound server channel
+     */
+    public void serve(ServerSocketChannel serverChannel) {
+        for (int i = 0; i < loops.length; i++) {
+            Thread thread = new Thread(loops[i], "agent-io-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)].register(channel);
+            } catch (IOException e) {
+                if (running && serverChannel.isOpen()) {
+                    System.err.println("Error accepting agent connection: " + e.getMessage());
+                } else {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the I/O threads and worker pool.
+     */
+    public void shutdown() {
+        running = false;
+        for (IoLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * One selector thread and the connections registered with it.
+     */
+    private final class IoLoop implements Runnable {
+
+        private final Selector selector;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        private final Queue<SocketChannel> registrations = new ConcurrentLinkedQueue<>();
+        private final Queue<Connection> writeRequests = new ConcurrentLinkedQueue<>();
+
+        IoLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            registrations.add(channel);
+            selector.wakeup();
+        }
+
+        void requestWrite(Connection connection) {
+            writeRequests.add(connection);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    selector.select();
+                    acceptRegistrations();
+                    enableWrites();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.read(readBuffer);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException | CancelledKeyException e) {
+                            // A worker thread may close the connection, cancelling
+                            // its key, while this loop is still using it
+                            connection.closeNow();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Agent I/O loop error: " + e.getMessage());
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void acceptRegistrations() {
+            SocketChannel channel;
+            while ((channel = registrations.poll()) != null) {
+                Connection connection = new Connection(this, channel);
+                try {
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch (ClosedChannelException e) {
+                    connection.closeNow();
+                }
+            }
+        }
+
+        private void enableWrites() {
+            Connection connection;
+            while ((connection = writeRequests.poll()) != null) {
+                SelectionKey key = connection.key;
+                try {
+                    if (key != null && key.isValid()) {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    }
+                } catch (CancelledKeyException e) {
+                    connection.closeNow();
+                }
+            }
+        }
+    }
+
+    /**
+     * State of a single agent connection.
+     * Inbound bytes and the write queue are touched only by the owning I/O thread;
+     * complete lines and outbound buffers cross threads through concurrent queues.
+     */
+    private final class Connection implements AgentConnection {
+
+        private final IoLoop loop;
+        private final SocketChannel channel;
+        private final AgentHandler handler;
+        private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+        private final Queue<String> inbound = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean dispatching = new AtomicBoolean();
+        private final OutboundBuffer outbound = auctionHouse.newOutboundBuffer();
+        private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+        private final AtomicBoolean writeRequested = new AtomicBoolean();
+        private volatile boolean closing = false;
+        private volatile boolean closed = false;
+        private SelectionKey key;
+
+        Connection(IoLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+            this.handler = new AgentHandler(this, itemManager, bankClient, auctionHouse);
+        }
+
+        /**
+         * Reads available bytes, splits them into lines and queues each for dispatch.
+         */
+        void read(ByteBuffer buffer) throws IOException {
+            buffer.clear();
+            int count = channel.read(buffer);
+            if (count < 0) {
+                closeNow();
+                return;
+            }
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    String line = partialLine.toString(StandardCharsets.UTF_8);
+                    partialLine.reset();
+                    inbound.add(line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+                } else if (partialLine.size() < MAX_LINE_LENGTH) {
+                    partialLine.write(b);
+                }
+            }
+            scheduleDispatch();
+        }
+
+        /**
+         * Runs queued lines on the worker pool, never more than one task per connection.
+         */
+        private void scheduleDispatch() {
+            if (!inbound.isEmpty() && dispatching.compareAndSet(false, true)) {
+                workers.execute(this::dispatch);
+            }
+        }
+
+        private void dispatch() {
+            String line;
+            while (!closed && (line = inbound.poll()) != null) {
+                if (!handler.handleLine(line)) {
+                    break;
+                }
+            }
+            dispatching.set(false);
+            if (!closed) {
+                scheduleDispatch();
+            }
+        }
+
+        /**
+         * Writes as much queued output as the socket accepts, using gathering writes.
+         */
+        void write() throws IOException {
+            writeRequested.set(false);
+            OutboundBuffer.Frame next;
+            while (writing.size() < MAX_GATHER && (next = outbound.poll()) != null) {
+                writing.add(ByteBuffer.wrap(next.bytes));
+            }
+
+            if (!writing.isEmpty()) {
+                channel.write(writing.toArray(new ByteBuffer[0]));
+                while (!writing.isEmpty() && !writing.peekFirst().hasRemaining()) {
+                    writing.pollFirst();
+                }
+            }
+
+            if (writing.isEmpty() && outbound.isEmpty()) {
+                if (closing) {
+                    closeNow();
+                    return;
+                }
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        }
+
+        @Override
+        public boolean send(String line, int coalesceKey) {
+            if (closing) return true;
+            if (!outbound.offer(line, coalesceKey)) {
+                return false;
+            }
+            requestWrite();
+            return true;
+        }
+
+        @Override
+        public long getLagMillis() {
+            return outbound.getLagMillis();
+        }
+
+        private void requestWrite() {
+            if (writeRequested.compareAndSet(false, true)) {
+                loop.requestWrite(this);
+            }
+        }
+
+        /**
+         * Closes the connection once everything already sent has been written.
+         */
+        @Override
+        public void close() {
+            closing = true;
+            requestWrite();
+        }
+
+        @Override
+        public void closeNow() {
+            if (closed) return;
+            closing = true;
+            closed = true;
+            outbound.close();
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing agent channel: " + e.getMessage());
+            }
+        }
+    }
+}
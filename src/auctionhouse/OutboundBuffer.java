@@ -0,0 +1,173 @@
+package auctionhouse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-agent queue of outbound lines with high/low watermarks on the queued bytes.
+ * Writers never block: a line is either queued, coalesced into a queued update
+ * for the same item, or refused when the agent must be disconnected.
+ * The age of the oldest queued line measures how far the agent lags behind.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+class OutboundBuffer {
+
+    /**
+     * Multiple of the high watermark at which even the coalescing policy gives up.
+     */
+    private static final int HARD_LIMIT_FACTOR = 4;
+
+    /**
+     * One queued line.
+     */
+    static final class Frame {
+        byte[] bytes;
+        final long enqueuedAt;
+        final int coalesceKey;
+
+        Frame(byte[] bytes, int coalesceKey) {
+            this.bytes = bytes;
+            this.enqueuedAt = System.nanoTime();
+            this.coalesceKey = coalesceKey;
+        }
+    }
+
+    private final BackpressurePolicy policy;
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private final Map<Integer, Frame> queuedUpdates = new HashMap<>();
+    private long queuedBytes = 0;
+    private boolean congested = false;
+    private boolean closed = false;
+    private long coalescedCount = 0;
+    private final LatencyHistogram lag;
+
+    /**
+     * @param policy        what to do when the high watermark is passed
+     * @param highWatermark queued bytes at which the agent counts as congested
+     * @param lowWatermark  queued bytes at which a congested agent recovers
+     * @param lag           records how long each line waited before being taken for writing
+     */
+    OutboundBuffer(BackpressurePolicy policy, long highWatermark, long lowWatermark,
+                   LatencyHistogram lag) {
+        this.policy = policy;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.lag = lag;
+    }
+
+    /**
+     * Queues a line for the agent.
+     *
+     * @param line        the message, without a line terminator
+     * @param coalesceKey a positive key (the item ID) if a newer line with the same
+     *                    key may replace this one, or 0 if the line must be delivered
+     * @return false if the agent has exceeded its limits and must be disconnected
+     */
+    synchronized boolean offer(String line, int coalesceKey) {
+        if (closed) return true;
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+
+        if (congested && coalesceKey > 0) {
+            Frame queued = queuedUpdates.get(coalesceKey);
+            if (queued != null) {
+                queuedBytes += bytes.length - queued.bytes.length;
+                queued.bytes = bytes;
+                coalescedCount++;
+                return true;
+            }
+        }
+
+        if (queuedBytes + bytes.length > highWatermark) {
+            if (policy == BackpressurePolicy.DISCONNECT
+                    || queuedBytes + bytes.length > highWatermark * HARD_LIMIT_FACTOR) {
+                return false;
+            }
+            congested = true;
+        }
+
+        Frame frame = new Frame(bytes, coalesceKey);
+        frames.add(frame);
+        if (coalesceKey > 0) {
+            queuedUpdates.put(coalesceKey, frame);
+        }
+        queuedBytes += bytes.length;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Removes the next line, or returns null if none is queued.
+     */
+    synchronized Frame poll() {
+        Frame frame = frames.poll();
+        if (frame != null) {
+            lag.record(System.nanoTime() - frame.enqueuedAt);
+            queuedBytes -= frame.bytes.length;
+            if (frame.coalesceKey > 0) {
+                queuedUpdates.remove(frame.coalesceKey, frame);
+            }
+            if (congested && queuedBytes <= lowWatermark) {
+                congested = false;
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Waits for the next line.
+     *
+     * @return the next frame, or null once the buffer is closed and empty
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    synchronized Frame take() throws InterruptedException {
+        while (frames.isEmpty() && !closed) {
+            wait();
+        }
+        return poll();
+    }
+
+    /**
+     * @return true if no lines are queued
+     */
+    synchronized boolean isEmpty() {
+        return frames.isEmpty();
+    }
+
+    /**
+     * Stops accepting lines and wakes any thread waiting in {@link #take()}.
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * @return how long the oldest queued line has waited, in milliseconds
+     */
+    synchronized long getLagMillis() {
+        Frame oldest = frames.peek();
+        return oldest == null ? 0 : (System.nanoTime() - oldest.enqueuedAt) / 1_000_000;
+    }
+
+    /**
+     * @return the number of bytes currently queued
+     */
+    synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    /**
+     * @return how many updates have been replaced by newer ones while congested
+     */
+    synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+}
@@ -0,0 +1,195 @@
+package auctionhouse;
+
+import shared.Message;
+import shared.SocketAuctionClient;
+import shared.SocketBankClient;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks a partitioned auction house end to end, with the bank, the router
+ * and each worker in its own JVM. An agent bids through the router on an item
+ * of the only worker; a second worker joins, the first is killed, and the
+ * check expects the bidder's held funds to be released, the agent to be told
+ * it was outbid, and the survivor to list at least as many items as before.
+ * <p>
+ * Usage: {@code java -cp bank.jar:auctionhouse.jar auctionhouse.PartitionCheck}
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class PartitionCheck {
+
+    private static final int BALANCE = 10_000;
+    private static final long WAIT_MS = 15_000;
+
+    private static final List<Process> processes = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        boolean passed;
+        try {
+            passed = run();
+        } finally {
+            for (Process process : processes) {
+                process.destroyForcibly();
+            }
+        }
+        System.out.println(passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static boolean run() throws Exception {
+        int bankPort = freePort();
+        int agentPort = freePort();
+        int controlPort = freePort();
+        String bank = String.valueOf(bankPort);
+
+        launch("bank", "bank.BankServer", bank);
+        waitForPort(bankPort);
+        launch("router", "auctionhouse.PartitionLauncher", "router", "localhost", bank,
+                String.valueOf(agentPort), String.valueOf(controlPort));
+        waitForPort(agentPort);
+        int firstPort = freePort();
+        Process first = launch("worker-1", "auctionhouse.PartitionLauncher", "worker", "localhost",
+                bank, String.valueOf(firstPort), "localhost", String.valueOf(controlPort));
+        waitForPort(firstPort);
+
+        SocketBankClient bankClient = new SocketBankClient("localhost", bankPort);
+        int agentId = bankClient.registerAgent("partition-check", BALANCE);
+        SocketAuctionClient client = new SocketAuctionClient();
+        client.connect("localhost", agentPort, agentId);
+
+        waitForItems(client, 1);
+        // Let the worker finish activating its items before counting them
+        Thread.sleep(1_000);
+        List<String[]> items = client.getAvailableItems();
+        int listed = items.size();
+        String[] item = items.get(0);
+        int itemId = Integer.parseInt(item[1]);
+        int amount = Integer.parseInt(item[item.length - 2]) + 1;
+        client.placeBid(itemId, amount);
+        if (!awaitLine(client.getInputStream(), "ACCEPTED")) {
+            System.out.println("bid on item " + itemId + " was not accepted");
+            return false;
+        }
+        System.out.printf("agent %d leads item %d with %d; available %d%n",
+                agentId, itemId, amount, available(bankPort, agentId));
+
+        int secondPort = freePort();
+        launch("worker-2", "auctionhouse.PartitionLauncher", "worker", "localhost", bank,
+                String.valueOf(secondPort), "localhost", String.valueOf(controlPort));
+        waitForPort(secondPort);
+        Thread.sleep(1_000);
+        first.destroyForcibly().waitFor();
+        System.out.println("worker-1 killed");
+
+        boolean outbid = awaitLine(client.getInputStream(), "OUTBID " + itemId);
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        int available = available(bankPort, agentId);
+        while (available != BALANCE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+            available = available(bankPort, agentId);
+        }
+        int relisted = waitForItems(client, listed).size();
+
+        System.out.printf("outbid notice: %b, available %d of %d, items listed %d, before %d%n",
+                outbid, available, BALANCE, relisted, listed);
+        return outbid && available == BALANCE && relisted >= listed;
+    }
+
+    /**
+     * Starts a class in a new JVM on this JVM's class path, logging to
+     * {@code <name>.log} in the working directory.
+     */
+    private static Process launch(String name, String mainClass, String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass);
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(name + ".log"))
+                .start();
+        processes.add(process);
+        return process;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void waitForPort(int port) throws Exception {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (true) {
+            try {
+                new Socket("localhost", port).close();
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Nothing listening on port " + port);
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * Lists the catalog until at least {@code count} items are active.
+     */
+    private static List<String[]> waitForItems(SocketAuctionClient client, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        List<String[]> items = client.getAvailableItems();
+        while (items.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+            items = client.getAvailableItems();
+        }
+        return items;
+    }
+
+    /**
+     * Reads lines from the house until one starts with {@code prefix}, after
+     * any {@code SEQ <sequence>} prefix of a bid reply.
+     *
+     * @return false if none arrived in time
+     */
+    private static boolean awaitLine(BufferedReader in, String prefix) throws Exception {
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!in.ready()) {
+                Thread.sleep(50);
+                continue;
+            }
+            String line = in.readLine();
+            if (line == null) return false;
+            if (line.startsWith("SEQ ")) {
+                line = line.split(" ", 3)[2];
+            }
+            if (line.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    private static int available(int bankPort, int agentId) throws IOException {
+        try (Socket socket = new Socket("localhost", bankPort);
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            out.println(Message.encode("BALANCE", String.valueOf(agentId)));
+            String[] reply = Message.decode(String.valueOf(in.readLine()));
+            return reply.length == 3 ? Integer.parseInt(reply[2]) : -1;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package auctionhouse;
+
+import shared.BankClient;
+import shared.SharedMemoryBankClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Launches one process of a partitioned auction house, without a GUI.
+ * Run one router, which agents connect to, and any number of workers, which
+ * may join and leave while the house is running.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class PartitionLauncher {
+
+    public static void main(String[] args) {
+        if (args.length == 5 && args[0].equals("router")) {
+            startRouter(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]));
+        } else if (args.length == 6 && args[0].equals("worker")) {
+            startWorker(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    args[4], Integer.parseInt(args[5]));
+        } else {
+            System.err.println("Usage: java PartitionLauncher router <bankHost> <bankPort> <agentPort> <controlPort>");
+            System.err.println("       java PartitionLauncher worker <bankHost> <bankPort> <agentPort> <routerHost> <controlPort>");
+            System.exit(1);
+        }
+    }
+
+    private static void startRouter(String bankHost, int bankPort, int agentPort, int controlPort) {
+        ItemManager catalog = new ItemManager();
+        catalog.loadItemsFromResource("items.txt");
+        List<Integer> itemIds = new ArrayList<>();
+        for (AuctionItem item : catalog.getAllItems()) {
+            itemIds.add(item.getItemId());
+        }
+
+        BankClient bankClient = SharedMemoryBankClient.connect(bankHost, bankPort);
+        PartitionRouter router = new PartitionRouter(bankClient, agentPort, controlPort, itemIds);
+        Runtime.getRuntime().addShutdownHook(new Thread(router::shutdown));
+        router.start();
+    }
+
+    private static void startWorker(String bankHost, int bankPort, int agentPort,
+                                    String routerHost, int controlPort) {
+        ItemManager itemManager = new ItemManager();
+        itemManager.loadItemsFromResource("items.txt");
+
+        BankClient bankClient = SharedMemoryBankClient.connect(bankHost, bankPort);
+        AuctionHouse house = new AuctionHouse(agentPort, bankClient, itemManager);
+        house.configure(System.getProperties());
+        house.usePartition(new PartitionWorker(routerHost, controlPort, itemManager));
+        house.start();
+    }
+}
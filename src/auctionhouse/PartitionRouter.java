@@ -0,0 +1,743 @@
+package auctionhouse;
+
+import shared.BankClient;
+import shared.ListQuery;
+import shared.Message;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Front end of a partitioned auction house.
+ * The router registers the logical house with the bank once and spreads the
+ * catalog over worker houses ({@link PartitionWorker}) with a
+ * {@link ConsistentHashRing}. Agents connect to the router as if it were an
+ * ordinary house; each agent session holds one connection per worker, sends
+ * {@code BID} and {@code BIDS} to the owning worker, merges {@code LIST} pages and
+ * {@code SEARCH} results from all workers, and forwards every notification.
+ * <p>
+ * When a worker joins or leaves the ring, items are rebalanced: the old owner
+ * releases the moved items that have no bid in progress and the new owner
+ * adopts them. Items with a bid stay put until their auction ends. Items of a
+ * worker that left are adopted directly; their in-progress bids are lost, so
+ * the router releases the funds the leading bidders had held, which workers
+ * report with {@code HOLD} as bids are placed, and tells those agents they
+ * were outbid.
+ * <p>
+ * Opening every agent's connection to a joining worker can take a while, so
+ * it happens before the worker is added to the ring and without holding the
+ * router's lock.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class PartitionRouter {
+
+    private static final long REPLY_TIMEOUT_MS = 5000;
+    private static final String CLOSED = "";
+
+    private final BankClient bankClient;
+    private final int agentPort;
+    private final int controlPort;
+    private final List<Integer> catalog;
+    private final ConsistentHashRing ring = new ConsistentHashRing();
+    private final Map<String, Worker> workers = new ConcurrentHashMap<>();
+    private final Map<Integer, String> owners = new ConcurrentHashMap<>();
+    private final Set<Integer> soldItems = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Hold> holds = new ConcurrentHashMap<>();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService threadPool = Executors.newCachedThreadPool();
+    private ServerSocket agentSocket;
+    private ServerSocket controlSocket;
+    private volatile boolean running = false;
+    private int accountId = -1;
+
+    /**
+     * @param bankClient  the client used to register the logical house with the bank
+     * @param agentPort   the port agents connect to
+     * @param controlPort the port workers join on
+     * @param catalog     the IDs of every item in the shared catalog
+     */
+    public PartitionRouter(BankClient bankClient, int agentPort, int controlPort,
+                           List<Integer> catalog) {
+        this.bankClient = bankClient;
+        this.agentPort = agentPort;
+        this.controlPort = controlPort;
+        this.catalog = new ArrayList<>(catalog);
+    }
+
+    /**
+     * Registers with the bank, then accepts workers on a background thread and
+     * agents on the calling thread.
+     */
+    public void start() {
+        try {
+            agentSocket = new ServerSocket(agentPort);
+            controlSocket = new ServerSocket(controlPort);
+            running = true;
+
+            accountId = bankClient.registerAuctionHouse(AuctionHouse.getExternalIpAddress(),
+                    agentSocket.getLocalPort());
+            if (accountId < 0) {
+                System.err.println("Failed to register with bank. Aborting startup.");
+                return;
+            }
+
+            threadPool.submit(this::acceptWorkers);
+            while (running) {
+                Socket socket = agentSocket.accept();
+                threadPool.submit(new Session(socket));
+            }
+
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Partition router stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deregisters the logical house and closes all connections.
+     */
+    public void shutdown() {
+        running = false;
+        bankClient.deregister(accountId);
+        try {
+            if (agentSocket != null) agentSocket.close();
+            if (controlSocket != null) controlSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing router sockets: " + e.getMessage());
+        }
+        for (Worker worker : workers.values()) {
+            worker.close();
+        }
+        threadPool.shutdownNow();
+    }
+
+    /**
+     * @return the current members of the ring
+     */
+    public List<String> getWorkers() {
+        return ring.getMembers();
+    }
+
+    private void acceptWorkers() {
+        while (running) {
+            try {
+                Socket socket = controlSocket.accept();
+                threadPool.submit(() -> serveWorker(socket));
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Error accepting worker: " + e.getMessage());
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Handles one worker's control link: the JOIN handshake, then its
+     * RELEASED and SOLD reports until it disconnects.
+     */
+    private void serveWorker(Socket socket) {
+        Worker worker = null;
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+            String[] join = Message.decode(String.valueOf(in.readLine()));
+            if (join.length != 3 || !join[0].equals("JOIN")) {
+                out.println(Message.encode("ERROR", "Expected JOIN <host> <port>"));
+                socket.close();
+                return;
+            }
+
+            worker = new Worker(join[1], Integer.parseInt(join[2]), socket, out);
+            out.println(Message.encode("PARTITION", String.valueOf(accountId)));
+            join(worker);
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = Message.decode(line);
+                switch (parts[0]) {
+                    case "RELEASED" -> reassign(parts);
+                    case "SOLD" -> {
+                        int itemId = Integer.parseInt(parts[1]);
+                        soldItems.add(itemId);
+                        holds.remove(itemId);
+                    }
+                    case "HOLD" -> recordHold(parts);
+                    default -> System.err.println("Unknown worker message: " + line);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Worker control link failed: " + e.getMessage());
+        } finally {
+            if (worker != null) {
+                leave(worker);
+            }
+        }
+    }
+
+    private void join(Worker worker) {
+        for (Session session : sessions) {
+            session.connect(worker);
+        }
+        synchronized (this) {
+            workers.put(worker.name, worker);
+            ring.add(worker.name);
+            System.out.println("Partition worker joined: " + worker.name);
+            rebalance();
+        }
+        // Sessions that started while the others were connecting; the rest
+        // are already connected and skip it
+        for (Session session : sessions) {
+            if (workers.get(worker.name) != worker) break;
+            session.connect(worker);
+        }
+    }
+
+    private void leave(Worker worker) {
+        Map<Integer, Hold> lost = new HashMap<>();
+        synchronized (this) {
+            if (!workers.remove(worker.name, worker)) return;
+            ring.remove(worker.name);
+            worker.close();
+            for (Session session : sessions) {
+                session.disconnect(worker.name);
+            }
+            for (Map.Entry<Integer, String> owner : owners.entrySet()) {
+                Hold hold = owner.getValue().equals(worker.name) ? holds.remove(owner.getKey()) : null;
+                if (hold != null) {
+                    lost.put(owner.getKey(), hold);
+                }
+            }
+            System.out.println("Partition worker left: " + worker.name);
+            rebalance();
+        }
+        releaseHolds(lost);
+    }
+
+    /**
+     * Records the leading bid a worker reported for an item:
+     * {@code HOLD <itemId> <agentId> <amount>}, with an agent of -1 once the
+     * item holds no funds.
+     */
+    private void recordHold(String[] parts) {
+        int itemId = Integer.parseInt(parts[1]);
+        int agentId = Integer.parseInt(parts[2]);
+        if (agentId == -1) {
+            holds.remove(itemId);
+        } else {
+            holds.put(itemId, new Hold(agentId, Integer.parseInt(parts[3])));
+        }
+    }
+
+    /**
+     * Gives back the funds held for bids lost with a worker, and tells each
+     * bidder it no longer leads.
+     */
+    private void releaseHolds(Map<Integer, Hold> lost) {
+        for (Map.Entry<Integer, Hold> entry : lost.entrySet()) {
+            Hold hold = entry.getValue();
+            bankClient.unblockFunds(hold.agentId(), hold.amount());
+            System.out.printf("Released %d held by agent %d for item %d%n",
+                    hold.amount(), hold.agentId(), entry.getKey());
+            for (Session session : sessions) {
+                if (session.agentId == hold.agentId()) {
+                    session.send(Message.encode("OUTBID", String.valueOf(entry.getKey())));
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves every unsold item towards its ring owner. Items without a live owner
+     * are adopted at once; items on the wrong live worker are released first and
+     * adopted when the worker confirms.
+     */
+    private synchronized void rebalance() {
+        Map<String, List<Integer>> adopt = new HashMap<>();
+        Map<String, List<Integer>> release = new HashMap<>();
+
+        for (int itemId : catalog) {
+            if (soldItems.contains(itemId)) continue;
+            String desired = ring.ownerOf(itemId);
+            if (desired == null) continue;
+
+            String current = owners.get(itemId);
+            if (current == null || !workers.containsKey(current)) {
+                owners.put(itemId, desired);
+                adopt.computeIfAbsent(desired, w -> new ArrayList<>()).add(itemId);
+            } else if (!current.equals(desired)) {
+                release.computeIfAbsent(current, w -> new ArrayList<>()).add(itemId);
+            }
+        }
+
+        send("ADOPT", adopt);
+        send("RELEASE", release);
+    }
+
+    /**
+     * Hands items a worker has released to their current ring owners.
+     */
+    private synchronized void reassign(String[] released) {
+        Map<String, List<Integer>> adopt = new HashMap<>();
+        for (int i = 1; i < released.length; i++) {
+            int itemId = Integer.parseInt(released[i]);
+            String desired = ring.ownerOf(itemId);
+            if (desired == null) {
+                owners.remove(itemId);
+                continue;
+            }
+            owners.put(itemId, desired);
+            adopt.computeIfAbsent(desired, w -> new ArrayList<>()).add(itemId);
+        }
+        send("ADOPT", adopt);
+    }
+
+    private void send(String command, Map<String, List<Integer>> batches) {
+        for (Map.Entry<String, List<Integer>> batch : batches.entrySet()) {
+            Worker worker = workers.get(batch.getKey());
+            if (worker == null) continue;
+
+            String[] args = new String[batch.getValue().size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = String.valueOf(batch.getValue().get(i));
+            }
+            worker.out.println(Message.encode(command, args));
+        }
+    }
+
+    /**
+     * The control link to one worker house.
+     */
+    private static final class Worker {
+        final String host;
+        final int port;
+        final String name;
+        final Socket socket;
+        final PrintWriter out;
+
+        Worker(String host, int port, Socket socket, PrintWriter out) {
+            this.host = host;
+            this.port = port;
+            this.name = host + ":" + port;
+            this.socket = socket;
+            this.out = out;
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Funds an item's leading bid holds on a worker.
+     */
+    private record Hold(int agentId, int amount) {
+    }
+
+    /**
+     * One item line from a worker's LIST reply, with its sort keys.
+     */
+    private record Listed(String line, int itemId, int price) {
+    }
+
+    /**
+     * One agent connected to the router, with a connection to every worker.
+     */
+    private final class Session implements Runnable {
+
+        private final Socket socket;
+        private PrintWriter out;
+        private volatile int agentId = -1;
+        private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            try {
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                out = new PrintWriter(socket.getOutputStream(), true);
+
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!handleLine(line)) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Agent communication error: " + e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private boolean handleLine(String line) {
+            String[] tokens = Message.decode(line);
+            if (agentId == -1) {
+                return handleHandshake(tokens);
+            }
+            if (tokens[0].isEmpty()) return true;
+
+            synchronized (this) {
+                switch (tokens[0].toUpperCase()) {
+                    case "LIST" -> handleList(tokens, line);
+                    case "SEARCH" -> handleSearch(tokens, line);
+                    case "BID" -> handleBid(tokens, line);
+                    case "BIDS" -> handleBatchBid(tokens, line);
+                    case "HISTORY" -> handleHistory(tokens, line);
+                    case "QUIT" -> {
+                        for (Upstream upstream : upstreams.values()) {
+                            upstream.send("QUIT");
+                        }
+                        send(Message.encode("GOODBYE"));
+                        return false;
+                    }
+                    default -> send(Message.encode("ERROR", "Unknown command"));
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Handles {@code AGENT <id> [version [compression]]}. Workers version
+         * their changes independently, so the router ignores the version and
+         * its agents reload the catalog after reconnecting. Merged replies are
+         * never compressed, so the WELCOME reply names no compression.
+         */
+        private boolean handleHandshake(String[] tokens) {
+            try {
+                if (tokens.length < 2 || tokens.length > 4 || !tokens[0].equalsIgnoreCase("AGENT")) {
+                    send(Message.encode("REJECTED", "Missing AGENT ID"));
+                    return false;
+                }
+                agentId = Integer.parseInt(tokens[1]);
+            } catch (NumberFormatException e) {
+                send(Message.encode("REJECTED", "Invalid AGENT ID"));
+                return false;
+            }
+
+            List<Worker> current;
+            synchronized (PartitionRouter.this) {
+                sessions.add(this);
+                current = new ArrayList<>(workers.values());
+            }
+            for (Worker worker : current) {
+                connect(worker);
+            }
+            send(Message.encode("WELCOME", String.valueOf(agentId)));
+            return true;
+        }
+
+        /**
+         * Sends the query to every worker and merges their pages into one,
+         * ending with a cursor if any worker may have more.
+         */
+        private void handleList(String[] tokens, String line) {
+            ListQuery query = null;
+            if (tokens.length > 1) {
+                try {
+                    query = ListQuery.decode(tokens);
+                } catch (IllegalArgumentException e) {
+                    send(Message.encode("ERROR", "Invalid LIST arguments"));
+                    send(Message.encode("END_ITEMS"));
+                    return;
+                }
+            }
+
+            List<Listed> items = new ArrayList<>();
+            boolean more = false;
+            for (List<String> reply : fanOut(line, "END_ITEMS")) {
+                for (String itemLine : reply) {
+                    String[] parts = Message.decode(itemLine);
+                    if (parts[0].equals("ITEM") && parts.length >= 5) {
+                        int minBid = Integer.parseInt(parts[parts.length - 2]);
+                        int currentBid = Integer.parseInt(parts[parts.length - 1]);
+                        items.add(new Listed(itemLine, Integer.parseInt(parts[1]),
+                                Math.max(minBid, currentBid)));
+                    } else if (parts[0].equals("END_ITEMS") && parts.length > 1) {
+                        more = true;
+                    }
+                }
+            }
+
+            ListQuery.Sort sort = query == null ? ListQuery.Sort.ID : query.getSort();
+            Comparator<Listed> order = switch (sort) {
+                case PRICE -> Comparator.comparingInt(Listed::price).thenComparingInt(Listed::itemId);
+                case PRICE_DESC -> Comparator.comparingInt(Listed::price)
+                        .thenComparingInt(Listed::itemId).reversed();
+                default -> Comparator.comparingInt(Listed::itemId);
+            };
+            items.sort(order);
+
+            if (query != null && items.size() > query.getLimit()) {
+                items = items.subList(0, query.getLimit());
+                more = true;
+            }
+            for (Listed item : items) {
+                send(item.line());
+            }
+            if (more && !items.isEmpty()) {
+                Listed last = items.get(items.size() - 1);
+                send(Message.encode("END_ITEMS", ListQuery.cursorFor(sort, last.itemId(), last.price())));
+            } else {
+                send(Message.encode("END_ITEMS"));
+            }
+        }
+
+        /**
+         * Sends the search to every worker and keeps the best-scoring results.
+         * Each worker scores against its own items, so scores are approximate.
+         */
+        private void handleSearch(String[] tokens, String line) {
+            int limit;
+            try {
+                limit = tokens.length < 3 ? 0 : Integer.parseInt(tokens[1]);
+            } catch (NumberFormatException e) {
+                limit = 0;
+            }
+            if (limit <= 0) {
+                send(Message.encode("ERROR", "Invalid SEARCH format"));
+                send(Message.encode("END_RESULTS"));
+                return;
+            }
+
+            List<String> results = new ArrayList<>();
+            for (List<String> reply : fanOut(line, "END_RESULTS")) {
+                for (String resultLine : reply) {
+                    if (resultLine.startsWith("RESULT ")) {
+                        results.add(resultLine);
+                    }
+                }
+            }
+            results.sort(Comparator.comparingDouble(Session::score).reversed());
+            for (String result : results.subList(0, Math.min(limit, results.size()))) {
+                send(result);
+            }
+            send(Message.encode("END_RESULTS"));
+        }
+
+        private static double score(String resultLine) {
+            String[] parts = Message.decode(resultLine);
+            return Double.parseDouble(parts[parts.length - 1]);
+        }
+
+        private void handleBid(String[] tokens, String line) {
+            if (tokens.length < 3) {
+                send(Message.encode("REJECTED", "Invalid BID format"));
+                return;
+            }
+            try {
+                Upstream owner = ownerOf(Integer.parseInt(tokens[1]));
+                if (owner == null) {
+                    send(Message.encode("REJECTED", "Item not found or already sold"));
+                } else {
+                    owner.send(line);
+                }
+            } catch (NumberFormatException e) {
+                send(Message.encode("REJECTED", "Invalid number format"));
+            }
+        }
+
+        /**
+         * Forwards a history subscription to the worker that owns the item.
+         * Its HISTORY and PRICE replies are passed through as they arrive.
+         */
+        private void handleHistory(String[] tokens, String line) {
+            try {
+                Upstream owner = tokens.length < 2 ? null : ownerOf(Integer.parseInt(tokens[1]));
+                if (owner == null) {
+                    send(Message.encode("ERROR", "Item not found or already sold"));
+                } else {
+                    owner.send(line);
+                }
+            } catch (NumberFormatException e) {
+                send(Message.encode("ERROR", "Invalid number format"));
+            }
+        }
+
+        /**
+         * Forwards a batch to the worker that owns all of its items. A batch
+         * holds its funds atomically on one worker, so it cannot span partitions.
+         */
+        private void handleBatchBid(String[] tokens, String line) {
+            Set<Upstream> targets = new HashSet<>();
+            try {
+                for (int i = 1; i < tokens.length; i += 2) {
+                    targets.add(ownerOf(Integer.parseInt(tokens[i])));
+                }
+            } catch (NumberFormatException e) {
+                send(Message.encode("REJECTED", "Invalid number format"));
+                return;
+            }
+
+            if (targets.size() != 1 || targets.contains(null)) {
+                send(Message.encode("REJECTED", "BIDS items must belong to one partition"));
+                return;
+            }
+            targets.iterator().next().send(line);
+        }
+
+        private Upstream ownerOf(int itemId) {
+            String owner = owners.get(itemId);
+            return owner == null ? null : upstreams.get(owner);
+        }
+
+        /**
+         * Sends a request to every worker and collects each one's reply up to
+         * and including the line starting with {@code endCommand}.
+         */
+        private List<List<String>> fanOut(String line, String endCommand) {
+            List<Upstream> targets = new ArrayList<>(upstreams.values());
+            for (Upstream upstream : targets) {
+                upstream.replies.clear();
+                upstream.send(line);
+            }
+            List<List<String>> replies = new ArrayList<>();
+            for (Upstream upstream : targets) {
+                replies.add(upstream.collect(endCommand));
+            }
+            return replies;
+        }
+
+        /**
+         * Opens this agent's connection to a worker and completes its handshake,
+         * unless it is already open or the agent has not finished its own
+         * handshake or has left.
+         */
+        synchronized void connect(Worker worker) {
+            if (agentId == -1 || !sessions.contains(this) || upstreams.containsKey(worker.name)) return;
+            try {
+                Upstream upstream = new Upstream(worker);
+                upstream.send(Message.encode("AGENT", String.valueOf(agentId)));
+                List<String> welcome = upstream.collect("WELCOME");
+                if (welcome.isEmpty() || !welcome.get(welcome.size() - 1).startsWith("WELCOME")) {
+                    upstream.close();
+                    return;
+                }
+                upstreams.put(worker.name, upstream);
+            } catch (IOException e) {
+                System.err.println("Failed to connect agent " + agentId + " to " + worker.name
+                        + ": " + e.getMessage());
+            }
+        }
+
+        synchronized void disconnect(String workerName) {
+            Upstream upstream = upstreams.remove(workerName);
+            if (upstream != null) {
+                upstream.close();
+            }
+        }
+
+        private void send(String line) {
+            synchronized (out) {
+                out.println(line);
+            }
+        }
+
+        private synchronized void close() {
+            sessions.remove(this);
+            for (Upstream upstream : upstreams.values()) {
+                upstream.close();
+            }
+            upstreams.clear();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Error closing agent socket: " + e.getMessage());
+            }
+        }
+
+        /**
+         * This agent's connection to one worker. Replies to requests the router
+         * merges are queued for the session thread; everything else is
+         * forwarded to the agent as it arrives.
+         */
+        private final class Upstream {
+
+            private final Socket socket;
+            private final PrintWriter out;
+            private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+
+            Upstream(Worker worker) throws IOException {
+                this.socket = new Socket(worker.host, worker.port);
+                this.out = new PrintWriter(socket.getOutputStream(), true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+                Thread reader = new Thread(() -> read(in), "partition-upstream-" + worker.name);
+                reader.setDaemon(true);
+                reader.start();
+            }
+
+            private void read(BufferedReader in) {
+                try {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        String command = Message.decode(line)[0];
+                        switch (command) {
+                            case "WELCOME", "ITEM", "END_ITEMS", "RESULT", "END_RESULTS" -> replies.add(line);
+                            case "GOODBYE" -> {
+                            }
+                            default -> Session.this.send(line);
+                        }
+                    }
+                } catch (IOException ignored) {
+                    // the worker or the session closed the connection
+                } finally {
+                    replies.add(CLOSED);
+                }
+            }
+
+            /**
+             * Takes queued reply lines until one starts with {@code endCommand},
+             * the connection closes, or the worker stops answering.
+             */
+            List<String> collect(String endCommand) {
+                List<String> lines = new ArrayList<>();
+                try {
+                    while (true) {
+                        String line = replies.poll(REPLY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                        if (line == null || line.equals(CLOSED)) {
+                            if (line != null) replies.add(CLOSED);
+                            return lines;
+                        }
+                        lines.add(line);
+                        if (line.startsWith(endCommand)) {
+                            return lines;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return lines;
+                }
+            }
+
+            void send(String line) {
+                out.println(line);
+            }
+
+            void close() {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package auctionhouse;
+
+import shared.Message;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Control link from one partition of a logical auction house to its
+ * {@link PartitionRouter}. The worker joins with its agent address and then
+ * follows the router's {@code ADOPT} and {@code RELEASE} assignments, reporting
+ * released and sold items back so the router can keep its routing table current.
+ * It also reports each item's leading bid as {@code HOLD <itemId> <agentId> <amount>}
+ * ({@code -1 0} once cleared), so the router can release those funds if this
+ * worker dies with the auction unfinished.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class PartitionWorker {
+
+    private final String routerHost;
+    private final int routerPort;
+    private final ItemManager itemManager;
+    private Socket socket;
+    private PrintWriter out;
+
+    /**
+     * @param routerHost  the router's host name
+     * @param routerPort  the router's partition control port
+     * @param itemManager the item manager holding this worker's copy of the catalog
+     */
+    public PartitionWorker(String routerHost, int routerPort, ItemManager itemManager) {
+        this.routerHost = routerHost;
+        this.routerPort = routerPort;
+        this.itemManager = itemManager;
+    }
+
+    /**
+     * Gives up the whole catalog, joins the router and starts following its
+     * assignments on a background thread.
+     *
+     * @param house the auction house this worker belongs to
+     * @param host  the host agents should use to reach this worker
+     * @param port  the port agents should use to reach this worker
+     * @return the logical house's bank account ID, or -1 if the join failed
+     */
+    int join(AuctionHouse house, String host, int port) {
+        List<Integer> catalog = new ArrayList<>();
+        for (AuctionItem item : itemManager.getAllItems()) {
+            catalog.add(item.getItemId());
+        }
+        itemManager.release(catalog, null);
+        itemManager.setSoldListener(itemId -> send(Message.encode("SOLD", String.valueOf(itemId))));
+        itemManager.setHoldListener((itemId, agentId, amount) -> send(Message.encode("HOLD",
+                String.valueOf(itemId), String.valueOf(agentId), String.valueOf(amount))));
+
+        try {
+            socket = new Socket(routerHost, routerPort);
+            out = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+            send(Message.encode("JOIN", host, String.valueOf(port)));
+            String[] reply = Message.decode(String.valueOf(in.readLine()));
+            if (reply.length != 2 || !reply[0].equals("PARTITION")) {
+                System.err.println("Partition router refused join: " + String.join(" ", reply));
+                return -1;
+            }
+
+            Thread listener = new Thread(() -> listen(house, in), "partition-control");
+            listener.setDaemon(true);
+            listener.start();
+            return Integer.parseInt(reply[1]);
+
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Failed to join partition router: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Applies assignments from the router until the control link closes.
+     */
+    private void listen(AuctionHouse house, BufferedReader in) {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = Message.decode(line);
+                List<Integer> itemIds = parseIds(parts);
+
+                switch (parts[0]) {
+                    case "ADOPT" -> itemManager.adopt(itemIds, house);
+                    case "RELEASE" -> {
+                        List<Integer> released = itemManager.release(itemIds, house);
+                        String[] args = new String[released.size()];
+                        for (int i = 0; i < args.length; i++) {
+                            args[i] = String.valueOf(released.get(i));
+                        }
+                        send(Message.encode("RELEASED", args));
+                    }
+                    default -> System.err.println("Unknown partition command: " + line);
+                }
+            }
+            System.err.println("Partition router closed the control link");
+        } catch (IOException e) {
+            System.err.println("Partition control link failed: " + e.getMessage());
+        }
+    }
+
+    private static List<Integer> parseIds(String[] parts) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            try {
+                ids.add(Integer.parseInt(parts[i]));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return ids;
+    }
+
+    private synchronized void send(String line) {
+        if (out != null) {
+            out.println(line);
+        }
+    }
+
+    /**
+     * Leaves the partition by closing the control link; the router moves this
+     * worker's items to the remaining workers.
+     */
+    void close() {
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing partition control link: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package auctionhouse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent bid history of each active item, kept in fixed-size primitive ring
+ * buffers of (timestamp, amount, bidder), so the memory per item is bounded.
+ * Agents may subscribe to an item's history: they receive a snapshot once,
+ * then one {@code PRICE} line per accepted bid.
+ * <p>
+ * Bids are recorded and subscriptions made while holding the item's monitor,
+ * so a subscriber sees every bid exactly once, either in its snapshot or as
+ * a later {@code PRICE} line.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class PriceHistory {
+
+    private final int capacity;
+    private final Map<Integer, Ring> rings = new ConcurrentHashMap<>();
+
+    /**
+     * The last {@code capacity} bids of one item and its subscribers.
+     */
+    private static final class Ring {
+        final long[] times;
+        final int[] amounts;
+        final int[] bidders;
+        long count = 0;
+        final Set<AgentHandler> subscribers = ConcurrentHashMap.newKeySet();
+
+        Ring(int capacity) {
+            times = new long[capacity];
+            amounts = new int[capacity];
+            bidders = new int[capacity];
+        }
+    }
+
+    /**
+     * @param capacity the number of bids kept per item
+     */
+    public PriceHistory(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Appends an accepted bid and pushes it to the item's subscribers.
+     * Must be called while holding the item's monitor.
+     *
+     * @param itemId   the item bid on
+     * @param time     the bid time in epoch milliseconds
+     * @param bidderId the bidding agent
+     * @param amount   the bid amount
+     */
+    void record(int itemId, long time, int bidderId, int amount) {
+        Ring ring = rings.computeIfAbsent(itemId, id -> new Ring(capacity));
+        synchronized (ring) {
+            int slot = (int) (ring.count % capacity);
+            ring.times[slot] = time;
+            ring.amounts[slot] = amount;
+            ring.bidders[slot] = bidderId;
+            ring.count++;
+        }
+        for (AgentHandler subscriber : ring.subscribers) {
+            subscriber.sendPriceUpdate(itemId, time, amount, bidderId);
+        }
+    }
+
+    /**
+     * Subscribes an agent to an item and returns the bids recorded so far.
+     * Must be called while holding the item's monitor, and the snapshot sent
+     * before releasing it.
+     *
+     * @param itemId     the item to follow
+     * @param subscriber the agent to push new bids to
+     * @return the recorded bids, oldest first, as (time, amount, bidder) triples
+     */
+    List<long[]> subscribe(int itemId, AgentHandler subscriber) {
+        Ring ring = rings.computeIfAbsent(itemId, id -> new Ring(capacity));
+        ring.subscribers.add(subscriber);
+        return snapshot(ring);
+    }
+
+    /**
+     * Stops pushing an item's bids to an agent.
+     *
+     * @param itemId     the item followed
+     * @param subscriber the agent to remove
+     */
+    void unsubscribe(int itemId, AgentHandler subscriber) {
+        Ring ring = rings.get(itemId);
+        if (ring != null) {
+            ring.subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * Returns the bids recorded for an item.
+     *
+     * @param itemId the item
+     * @return the recorded bids, oldest first, as (time, amount, bidder) triples
+     */
+    public List<long[]> getHistory(int itemId) {
+        Ring ring = rings.get(itemId);
+        return ring == null ? new ArrayList<>() : snapshot(ring);
+    }
+
+    /**
+     * Drops an item's history and subscribers once it leaves this house's
+     * active set. Subscribers learn of this through ITEM_SOLD or ITEM_UPDATED.
+     *
+     * @param itemId the item
+     */
+    void remove(int itemId) {
+        rings.remove(itemId);
+    }
+
+    private List<long[]> snapshot(Ring ring) {
+        synchronized (ring) {
+            int size = (int) Math.min(ring.count, capacity);
+            List<long[]> entries = new ArrayList<>(size);
+            for (long i = ring.count - size; i < ring.count; i++) {
+                int slot = (int) (i % capacity);
+                entries.add(new long[]{ring.times[slot], ring.amounts[slot], ring.bidders[slot]});
+            }
+            return entries;
+        }
+    }
+}
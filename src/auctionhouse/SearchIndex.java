@@ -0,0 +1,181 @@
+package auctionhouse;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index over item descriptions for the SEARCH command.
+ * Covers active and pending items; the item manager adds items as they are
+ * loaded and removes them once sold. Results are ranked by the summed inverse
+ * document frequency of the matched terms, so rarer words weigh more.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class SearchIndex {
+
+    private final Map<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+    private final Map<Integer, AuctionItem> documents = new ConcurrentHashMap<>();
+
+    /**
+     * A single ranked search hit.
+     *
+     * @param item  the matching item
+     * @param score the relevance score; higher is better
+     */
+    public record Hit(AuctionItem item, double score) {
+    }
+
+    /**
+     * Indexes an item's description.
+     *
+     * @param item the item to add
+     */
+    public void add(AuctionItem item) {
+        documents.put(item.getItemId(), item);
+        // Posting lists are changed inside compute so a concurrent remove
+        // cannot drop a list that has just gained an entry
+        for (String term : tokenize(item.getDescription())) {
+            postings.compute(term, (t, ids) -> {
+                Set<Integer> updated = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                updated.add(item.getItemId());
+                return updated;
+            });
+        }
+    }
+
+    /**
+     * Removes an item from the index.
+     *
+     * @param itemId the ID of the item to remove
+     */
+    public void remove(int itemId) {
+        AuctionItem item = documents.remove(itemId);
+        if (item == null) return;
+
+        for (String term : tokenize(item.getDescription())) {
+            postings.computeIfPresent(term, (t, ids) -> {
+                ids.remove(itemId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * @return the number of indexed items
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Finds the items matching any of the query terms, best first.
+     * Terms are visited rarest first. Once no item outside the hits found so
+     * far could outscore the {@code limit}-th of them, even if it matched every
+     * remaining term, the remaining, more common terms only add to the scores
+     * of those hits: each costs one lookup per hit rather than a walk of its
+     * posting list. A query whose rarest term is itself common, such as a
+     * single common word, still walks that term's whole list.
+     *
+     * @param query free text to search for
+     * @param limit the maximum number of hits to return
+     * @return ranked hits, highest score first
+     */
+    public List<Hit> search(String query, int limit) {
+        int total = Math.max(1, documents.size());
+        List<Term> terms = new ArrayList<>();
+        for (String term : tokenize(query)) {
+            Set<Integer> ids = postings.get(term);
+            if (ids == null || ids.isEmpty()) continue;
+
+            terms.add(new Term(ids, Math.log(1.0 + (double) total / ids.size())));
+        }
+        terms.sort(Comparator.comparingDouble(Term::idf).reversed());
+
+        Map<Integer, Double> scores = new HashMap<>();
+        boolean settled = false;
+        for (int i = 0; i < terms.size(); i++) {
+            Term term = terms.get(i);
+            if (settled) {
+                for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                    if (term.ids().contains(entry.getKey())) {
+                        entry.setValue(entry.getValue() + term.idf());
+                    }
+                }
+                continue;
+            }
+            for (Integer id : term.ids()) {
+                scores.merge(id, term.idf(), Double::sum);
+            }
+            // Summed in the same order as an item's score, so a tie compares equal
+            double unseen = 0;
+            for (int j = i + 1; j < terms.size(); j++) {
+                unseen += terms.get(j).idf();
+            }
+            settled = i + 1 < terms.size() && unseen < kthScore(scores, limit);
+        }
+
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score)
+                .thenComparing(hit -> hit.item().isActive())
+                .thenComparing(hit -> -hit.item().getItemId());
+        PriorityQueue<Hit> top = new PriorityQueue<>(ranking);
+
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            AuctionItem item = documents.get(entry.getKey());
+            if (item == null) continue;
+
+            top.add(new Hit(item, entry.getValue()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(ranking.reversed());
+        return hits;
+    }
+
+    /**
+     * A query term's posting list and weight.
+     */
+    private record Term(Set<Integer> ids, double idf) {
+    }
+
+    /**
+     * @return the {@code limit}-th highest score among indexed items, or
+     * negative infinity if fewer than {@code limit} have scored
+     */
+    private double kthScore(Map<Integer, Double> scores, int limit) {
+        if (limit <= 0 || scores.size() < limit) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        PriorityQueue<Double> top = new PriorityQueue<>();
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            if (!documents.containsKey(entry.getKey())) continue;
+
+            top.add(entry.getValue());
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        return top.size() < limit ? Double.NEGATIVE_INFINITY : top.peek();
+    }
+
+    /**
+     * Splits text into distinct lower-case alphanumeric terms.
+     *
+     * @param text the text to split
+     * @return the set of terms
+     */
+    private static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{Alnum}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
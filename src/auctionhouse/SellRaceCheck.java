@@ -0,0 +1,183 @@
+package auctionhouse;
+
+import shared.BankClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that lock-free selling holds up under contention. Several threads
+ * race over one large catalog, each outbidding the others on every active
+ * item the way a bid does (under the item's monitor, restarting its timer)
+ * and then ending that item's auction through the same method a timer runs,
+ * so bids, closes and replacements all contend for the same items. The check
+ * expects each item to be sold exactly once and paid for exactly once, the
+ * whole catalog to sell, no timers left behind, and never more than 3 items
+ * to be active.
+ * <p>
+ * Usage: {@code java -cp auctionhouse.jar auctionhouse.SellRaceCheck [threads] [items]}
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class SellRaceCheck {
+
+    private static final int MAX_ACTIVE = 3;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int itemCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        StringBuilder catalog = new StringBuilder();
+        for (int i = 0; i < itemCount; i++) {
+            catalog.append("Item ").append(i).append(',').append(10 + i % 100).append('\n');
+        }
+        ItemManager itemManager = new ItemManager();
+        itemManager.loadItems(new ByteArrayInputStream(
+                catalog.toString().getBytes(StandardCharsets.UTF_8)));
+        CountingBank bank = new CountingBank();
+        AuctionHouse house = new AuctionHouse(0, bank, itemManager);
+
+        // Item IDs start at 1
+        AtomicIntegerArray sales = new AtomicIntegerArray(itemCount + 1);
+        itemManager.setSoldListener(sales::incrementAndGet);
+        AtomicInteger maxActive = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+
+        // Each sale prints a line; keep them out of the report
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> bidders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int agentId = t + 1;
+            bidders.add(pool.submit(() -> {
+                while (true) {
+                    maxActive.accumulateAndGet(itemManager.getActiveCount(), Math::max);
+                    List<AuctionItem> active = itemManager.getAvailableItems();
+                    maxActive.accumulateAndGet(active.size(), Math::max);
+                    if (active.isEmpty() && itemManager.getPendingCount() == 0) {
+                        return;
+                    }
+                    for (AuctionItem item : active) {
+                        synchronized (item) {
+                            if (item.isActive() && item.getCurrentBidderId() != agentId) {
+                                int amount = Math.max(item.getMinimumBid(), item.getCurrentBid() + 1);
+                                itemManager.recordBid(item, agentId, amount);
+                                itemManager.startAuctionTimer(item, house);
+                            }
+                        }
+                        if (itemManager.closeAuction(item, house)) {
+                            closed.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> bidder : bidders) {
+            bidder.get();
+        }
+        pool.shutdown();
+        long elapsed = System.nanoTime() - start;
+        house.getSettlementQueue().shutdown();
+        System.setOut(out);
+
+        // What the winners owe, as recorded when each item sold
+        long winningTotal = 0;
+        for (SoldArchive.Sale sale : itemManager.getSoldArchive().query(
+                0, Long.MAX_VALUE, -1, 0, Integer.MAX_VALUE, itemCount)) {
+            winningTotal += sale.amount();
+        }
+        int once = 0;
+        int twice = 0;
+        for (int id = 1; id <= itemCount; id++) {
+            int count = sales.get(id);
+            if (count == 1) {
+                once++;
+            } else if (count > 1) {
+                twice++;
+            }
+        }
+        boolean passed = once == itemCount && twice == 0 && closed.get() == itemCount
+                && itemManager.getSoldCount() == itemCount && maxActive.get() <= MAX_ACTIVE
+                && bank.transfers.get() == itemCount && bank.transferred.get() == winningTotal
+                && itemManager.getTimerCount() == 0;
+        System.out.printf("%d threads sold %d of %d items in %.1f ms: %d sold more than once, "
+                        + "%d transfers for %d of %d, %d timers left, at most %d active%n",
+                threads, once, itemCount, elapsed / 1e6, twice, bank.transfers.get(),
+                bank.transferred.get(), winningTotal, itemManager.getTimerCount(),
+                maxActive.get());
+        System.out.println(passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * A bank that accepts every transfer and counts them.
+     */
+    private static class CountingBank implements BankClient {
+
+        final AtomicInteger transfers = new AtomicInteger();
+        final AtomicLong transferred = new AtomicLong();
+
+        @Override
+        public int registerAuctionHouse(String host, int port) {
+            return 1;
+        }
+
+        @Override
+        public int registerAgent(String name, int initialBalance) {
+            return 1;
+        }
+
+        @Override
+        public void deregister(int id) {
+        }
+
+        @Override
+        public boolean blockFunds(int agentId, int amount) {
+            return true;
+        }
+
+        @Override
+        public boolean[] blockFundsBatch(int[] agentIds, int[] amounts) {
+            boolean[] blocked = new boolean[agentIds.length];
+            Arrays.fill(blocked, true);
+            return blocked;
+        }
+
+        @Override
+        public void unblockFunds(int agentId, int amount) {
+        }
+
+        @Override
+        public void transferFunds(int fromAgentId, int toAuctionHouseId, int amount) {
+            transfers.incrementAndGet();
+            transferred.addAndGet(amount);
+        }
+
+        @Override
+        public boolean[] transferFundsBatch(int toAuctionHouseId, int[] itemIds, int[] agentIds,
+                                            int[] amounts) {
+            boolean[] settled = new boolean[agentIds.length];
+            for (int i = 0; i < amounts.length; i++) {
+                transferFunds(agentIds[i], toAuctionHouseId, amounts[i]);
+                settled[i] = true;
+            }
+            return settled;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package auctionhouse;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the outcomes of an agent's most recent sequenced bids, so a bid
+ * resent after a timeout or reconnect is answered with its original outcome
+ * instead of being applied twice.
+ * <p>
+ * Sequence numbers map to slots modulo the window size; a slot holds the
+ * sequence number it was last used for, so a stale slot is never mistaken
+ * for a newer bid's outcome.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class SequenceWindow {
+
+    /**
+     * Returned by {@link #begin(long)} while the original bid is still being processed.
+     */
+    static final String IN_PROGRESS = "REJECTED Duplicate bid in progress";
+
+    /**
+     * Returned by {@link #begin(long)} for a sequence number that fell out of the window.
+     */
+    static final String EXPIRED = "REJECTED Sequence number too old";
+
+    private final long[] sequences;
+    private final String[] outcomes;
+    private long highest = Long.MIN_VALUE;
+
+    /**
+     * @param size the number of recent outcomes remembered
+     */
+    public SequenceWindow(int size) {
+        sequences = new long[size];
+        outcomes = new String[size];
+        Arrays.fill(sequences, Long.MIN_VALUE);
+    }
+
+    /**
+     * Claims a sequence number for a new bid.
+     *
+     * @param sequence the client's sequence number
+     * @return null if the bid is new and should be processed, otherwise the
+     * reply to send instead: the original outcome, {@link #IN_PROGRESS} or {@link #EXPIRED}
+     */
+    public synchronized String begin(long sequence) {
+        int slot = slot(sequence);
+        if (sequences[slot] == sequence) {
+            return outcomes[slot] == null ? IN_PROGRESS : outcomes[slot];
+        }
+        if (highest != Long.MIN_VALUE && sequence <= highest - sequences.length) {
+            return EXPIRED;
+        }
+
+        sequences[slot] = sequence;
+        outcomes[slot] = null;
+        highest = Math.max(highest, sequence);
+        return null;
+    }
+
+    /**
+     * Records the outcome of a bid claimed with {@link #begin(long)}.
+     *
+     * @param sequence the client's sequence number
+     * @param outcome  the reply sent for the bid
+     */
+    public synchronized void complete(long sequence, String outcome) {
+        int slot = slot(sequence);
+        if (sequences[slot] == sequence) {
+            outcomes[slot] = outcome;
+        }
+    }
+
+    /**
+     * Forgets a claimed bid that was not applied, so a retry is processed afresh.
+     *
+     * @param sequence the client's sequence number
+     */
+    public synchronized void abandon(long sequence) {
+        int slot = slot(sequence);
+        if (sequences[slot] == sequence && outcomes[slot] == null) {
+            sequences[slot] = Long.MIN_VALUE;
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, (long) sequences.length);
+    }
+}
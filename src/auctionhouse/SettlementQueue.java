@@ -0,0 +1,215 @@
+package auctionhouse;
+
+import shared.BankClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settles sold items with the bank on behalf of their winners.
+ * When an auction timer closes an item, the winner's held funds are queued
+ * here instead of waiting for the agent to pay, and the queue is sent to the
+ * bank as one batched transfer every interval, or as soon as it holds a full
+ * batch. Transfers the bank refuses are retried a few times; after that the
+ * winner's hold is released, so the funds are not blocked forever, and the
+ * unpaid sale is reported. A batch that does not reach the bank, or whose
+ * reply is lost, was not refused: it is resent, with the wait between tries
+ * doubling up to {@link #MAX_BACKOFF_MILLIS}, for as long as the bank is
+ * unreachable. The bank pays for each item once, so resending is safe.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class SettlementQueue {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final AuctionHouse house;
+    private final BankClient bankClient;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final Queue<Sale> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    // Guarded by this queue's monitor, like drain()
+    private long backoffMillis = 0;
+    private long nextAttemptAt = 0;
+    private final ScheduledExecutorService settlementService =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "settlement");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * A sold item whose winner has not been charged yet.
+     */
+    private record Sale(int itemId, int agentId, int amount, int attempts) {
+    }
+
+    /**
+     * @param house          the auction house receiving the funds
+     * @param bankClient     the client used to transfer the funds
+     * @param intervalMillis the longest a sale waits before being settled
+     * @param batchSize      the number of queued sales that triggers an immediate settlement
+     */
+    public SettlementQueue(AuctionHouse house, BankClient bankClient, long intervalMillis,
+                           int batchSize) {
+        this.house = house;
+        this.bankClient = bankClient;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts settling queued sales at the configured interval.
+     */
+    public void start() {
+        settlementService.scheduleWithFixedDelay(this::drainQuietly, intervalMillis,
+                intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the schedule and settles whatever is still queued on the calling
+     * thread, including sales the bank refuses on the way, until each one is
+     * settled or has used up its attempts.
+     */
+    public void shutdown() {
+        settlementService.shutdownNow();
+        for (int round = 0; round < MAX_ATTEMPTS && size.get() > 0; round++) {
+            synchronized (this) {
+                nextAttemptAt = 0;
+            }
+            drainQuietly();
+        }
+        if (size.get() > 0) {
+            System.err.printf("%d sales left unsettled: the bank could not be reached%n", size.get());
+        }
+    }
+
+    /**
+     * Queues a sale for settlement. A full batch is handed to the settlement
+     * thread right away rather than waiting for the next interval.
+     *
+     * @param itemId  the sold item
+     * @param agentId the winning agent
+     * @param amount  the winning bid, already held by the bank
+     */
+    public void submit(int itemId, int agentId, int amount) {
+        pending.add(new Sale(itemId, agentId, amount, 0));
+        if (size.incrementAndGet() >= batchSize && !settlementService.isShutdown()) {
+            settlementService.execute(this::drainQuietly);
+        }
+    }
+
+    /**
+     * @return the number of sales waiting to be settled
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            System.err.println("Settlement failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends queued sales to the bank in batches until the queue is empty.
+     * Sales the bank refuses go back on the queue for a later round. If the
+     * bank cannot be reached, the rest of the queue waits for the backoff.
+     */
+    synchronized void drain() {
+        if (System.currentTimeMillis() < nextAttemptAt) return;
+
+        List<Sale> retry = new ArrayList<>();
+        List<Sale> batch = new ArrayList<>(batchSize);
+        Sale sale;
+        while (true) {
+            batch.clear();
+            while (batch.size() < batchSize && (sale = pending.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(sale);
+            }
+            if (batch.isEmpty()) break;
+            if (!settle(batch, retry)) {
+                // Not an answer from the bank, so no attempt is used up
+                retry.addAll(batch);
+                backoffMillis = Math.min(MAX_BACKOFF_MILLIS,
+                        backoffMillis == 0 ? intervalMillis : backoffMillis * 2);
+                nextAttemptAt = System.currentTimeMillis() + backoffMillis;
+                break;
+            }
+            backoffMillis = 0;
+        }
+        for (Sale failed : retry) {
+            pending.add(failed);
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Settles one batch with a single bank request.
+     *
+     * @return false if the request failed without an answer from the bank;
+     * the batch is then left for the caller to resend
+     */
+    private boolean settle(List<Sale> batch, List<Sale> retry) {
+        int[] itemIds = new int[batch.size()];
+        int[] agentIds = new int[batch.size()];
+        int[] amounts = new int[batch.size()];
+        BidEvents.Settlement[] events = new BidEvents.Settlement[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            itemIds[i] = batch.get(i).itemId();
+            agentIds[i] = batch.get(i).agentId();
+            amounts[i] = batch.get(i).amount();
+            events[i] = new BidEvents.Settlement();
+            events[i].begin();
+        }
+
+        boolean[] settled;
+        try {
+            settled = bankClient.transferFundsBatch(house.getAccountId(), itemIds, agentIds, amounts);
+        } catch (RuntimeException e) {
+            System.err.println("Settlement batch not delivered, will resend: " + e.getMessage());
+            return false;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Sale sale = batch.get(i);
+            events[i].complete(sale.itemId(), sale.agentId(), sale.amount(), settled[i]);
+            if (settled[i]) continue;
+            if (sale.attempts() + 1 < MAX_ATTEMPTS) {
+                retry.add(new Sale(sale.itemId(), sale.agentId(), sale.amount(), sale.attempts() + 1));
+            } else {
+                release(sale);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives up on a sale: the winner's hold is released so the funds do not
+     * stay blocked, and the debt is reported.
+     */
+    private void release(Sale sale) {
+        try {
+            bankClient.unblockFunds(sale.agentId(), sale.amount());
+        } catch (RuntimeException e) {
+            System.err.println("Could not release hold: " + e.getMessage());
+        }
+        System.err.printf("Could not settle item %d: agent %d owes %d, hold released%n",
+                sale.itemId(), sale.agentId(), sale.amount());
+    }
+}
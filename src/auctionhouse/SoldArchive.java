@@ -0,0 +1,233 @@
+package auctionhouse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Archive of settled sales with bounded memory use.
+ * The most recent sales stay in memory; older ones are spilled to an
+ * append-only file of fixed-size binary records (item ID, winner, amount,
+ * sale time). Queries scan the file sequentially, then the recent window.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class SoldArchive {
+
+    private static final int RECORD_SIZE = 4 + 4 + 4 + 8;
+    private static final int WRITE_BATCH = 64;
+    private static final int READ_BUFFER_RECORDS = 4096;
+
+    private final Path path;
+    private final int recentCapacity;
+    private final Deque<Sale> recent = new ArrayDeque<>();
+    private final ByteBuffer pendingWrites = ByteBuffer.allocate(RECORD_SIZE * WRITE_BATCH);
+    private FileChannel channel;
+    private long spilledCount = 0;
+
+    /**
+     * One settled sale.
+     *
+     * @param itemId   the item sold
+     * @param winnerId the winning agent
+     * @param amount   the winning bid
+     * @param soldAt   the sale time in epoch milliseconds
+     */
+    public record Sale(int itemId, int winnerId, int amount, long soldAt) {
+    }
+
+    /**
+     * Creates an archive. An existing spill file is opened right away and its
+     * records are included in counts and queries; otherwise the file is
+     * created on the first spill.
+     *
+     * @param path           the spill file, or null for a temporary file deleted on exit
+     * @param recentCapacity how many of the newest sales to keep in memory
+     */
+    public SoldArchive(Path path, int recentCapacity) {
+        this.path = path;
+        this.recentCapacity = Math.max(1, recentCapacity);
+        if (path != null && Files.exists(path)) {
+            try {
+                open();
+            } catch (IOException e) {
+                System.err.println("Failed to open sold archive: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Records a sale, spilling the oldest in-memory sale to disk if the window is full.
+     *
+     * @param itemId   the item sold
+     * @param winnerId the winning agent
+     * @param amount   the winning bid
+     * @param soldAt   the sale time in epoch milliseconds
+     */
+    public synchronized void add(int itemId, int winnerId, int amount, long soldAt) {
+        recent.addLast(new Sale(itemId, winnerId, amount, soldAt));
+        if (recent.size() > recentCapacity) {
+            spill(recent.removeFirst());
+        }
+    }
+
+    /**
+     * Buffers one sale for the spill file, writing the buffer once it is full.
+     * Callers must hold this archive's monitor.
+     */
+    private void spill(Sale sale) {
+        pendingWrites.putInt(sale.itemId()).putInt(sale.winnerId())
+                .putInt(sale.amount()).putLong(sale.soldAt());
+        spilledCount++;
+        if (!pendingWrites.hasRemaining()) {
+            flush();
+        }
+    }
+
+    /**
+     * @return the number of sales archived, in memory and on disk
+     */
+    public synchronized long size() {
+        return spilledCount + recent.size();
+    }
+
+    /**
+     * Finds sales matching all of the given filters, newest first.
+     * Memory use is bounded by {@code limit} regardless of archive size.
+     *
+     * @param from     earliest sale time, inclusive
+     * @param to       latest sale time, inclusive
+     * @param winnerId the winning agent, or -1 for any
+     * @param minPrice lowest winning bid, inclusive
+     * @param maxPrice highest winning bid, inclusive
+     * @param limit    the maximum number of sales to return
+     * @return the newest matching sales
+     */
+    public List<Sale> query(long from, long to, int winnerId, int minPrice, int maxPrice, int limit) {
+        Deque<Sale> newest = new ArrayDeque<>();
+        if (limit <= 0) return new ArrayList<>();
+
+        List<Sale> inMemory;
+        long onDisk;
+        FileChannel file;
+        synchronized (this) {
+            flush();
+            inMemory = new ArrayList<>(recent);
+            onDisk = spilledCount;
+            file = channel;
+        }
+
+        if (onDisk > 0 && file != null) {
+            // Records on disk are only ever appended, so the first onDisk are stable
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * READ_BUFFER_RECORDS);
+            long end = onDisk * RECORD_SIZE;
+            try {
+                for (long position = 0; position < end; ) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                    int read = file.read(buffer, position);
+                    if (read <= 0) break;
+                    buffer.flip();
+                    position += read - read % RECORD_SIZE;
+                    while (buffer.remaining() >= RECORD_SIZE) {
+                        Sale sale = new Sale(buffer.getInt(), buffer.getInt(),
+                                buffer.getInt(), buffer.getLong());
+                        keep(newest, sale, from, to, winnerId, minPrice, maxPrice, limit);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Sold archive read failed: " + e.getMessage());
+            }
+        }
+
+        for (Sale sale : inMemory) {
+            keep(newest, sale, from, to, winnerId, minPrice, maxPrice, limit);
+        }
+
+        List<Sale> result = new ArrayList<>(newest.size());
+        for (Iterator<Sale> it = newest.descendingIterator(); it.hasNext(); ) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    private static void keep(Deque<Sale> newest, Sale sale, long from, long to, int winnerId,
+                             int minPrice, int maxPrice, int limit) {
+        if (sale.soldAt() < from || sale.soldAt() > to) return;
+        if (winnerId != -1 && sale.winnerId() != winnerId) return;
+        if (sale.amount() < minPrice || sale.amount() > maxPrice) return;
+
+        newest.addLast(sale);
+        if (newest.size() > limit) {
+            newest.removeFirst();
+        }
+    }
+
+    /**
+     * Writes spilled records still buffered in memory. Callers must hold this
+     * archive's monitor.
+     */
+    private void flush() {
+        if (pendingWrites.position() == 0) return;
+        try {
+            if (channel == null) {
+                open();
+            }
+            pendingWrites.flip();
+            while (pendingWrites.hasRemaining()) {
+                channel.write(pendingWrites);
+            }
+        } catch (IOException e) {
+            System.err.println("Sold archive write failed: " + e.getMessage());
+        } finally {
+            pendingWrites.clear();
+        }
+    }
+
+    /**
+     * Opens the spill file for appending. Records already in it are counted,
+     * and a partial trailing record from a crash is discarded.
+     */
+    private void open() throws IOException {
+        Path file = path;
+        if (file == null) {
+            file = Files.createTempFile("sold-archive", ".bin");
+            file.toFile().deleteOnExit();
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = channel.size() - channel.size() % RECORD_SIZE;
+        channel.truncate(valid);
+        channel.position(valid);
+        spilledCount += valid / RECORD_SIZE;
+    }
+
+    /**
+     * Spills the in-memory window, writes any buffered records and closes the
+     * spill file, so a persistent archive keeps every sale across restarts.
+     */
+    public synchronized void close() {
+        while (!recent.isEmpty()) {
+            spill(recent.removeFirst());
+        }
+        flush();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing sold archive: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package auctionhouse;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * Agent connection over a blocking socket.
+ * Lines are queued in an {@link OutboundBuffer} and written by a dedicated
+ * writer thread, so a stalled agent never blocks the thread that sends to it.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+class StreamAgentConnection implements AgentConnection {
+
+    private final Socket socket;
+    private final OutputStream out;
+    private final OutboundBuffer buffer;
+
+    /**
+     * Wraps a connected agent socket and starts its writer thread.
+     *
+     * @param socket the socket for agent communication
+     * @param buffer the outbound queue for this agent
+     * @throws IOException if the output stream cannot be opened
+     */
+    StreamAgentConnection(Socket socket, OutboundBuffer buffer) throws IOException {
+        this.socket = socket;
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+        this.buffer = buffer;
+
+        Thread writer = new Thread(this::writeLoop, "agent-writer-" + socket.getPort());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Writes queued lines, flushing whenever the queue runs empty.
+     * Closes the socket once the buffer is closed and drained.
+     */
+    private void writeLoop() {
+        try {
+            OutboundBuffer.Frame frame;
+            while ((frame = buffer.take()) != null) {
+                out.write(frame.bytes);
+                if (buffer.isEmpty()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException | InterruptedException e) {
+            buffer.close();
+        } finally {
+            closeSocket();
+        }
+    }
+
+    @Override
+    public boolean send(String line, int coalesceKey) {
+        return buffer.offer(line, coalesceKey);
+    }
+
+    @Override
+    public void close() {
+        buffer.close();
+    }
+
+    @Override
+    public void closeNow() {
+        buffer.close();
+        closeSocket();
+    }
+
+    @Override
+    public long getLagMillis() {
+        return buffer.getLagMillis();
+    }
+
+    private void closeSocket() {
+        try {
+            if (!socket.isClosed()) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing agent socket: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package auctionhouse;
+
+import shared.BankClient;
+
+/**
+ * Bank client decorator that records the round trip of every call in the
+ * house metrics, one histogram per operation.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class TimedBankClient implements BankClient {
+
+    private final BankClient delegate;
+    private final LatencyHistogram register;
+    private final LatencyHistogram deregister;
+    private final LatencyHistogram block;
+    private final LatencyHistogram blockBatch;
+    private final LatencyHistogram unblock;
+    private final LatencyHistogram transfer;
+    private final LatencyHistogram transferBatch;
+
+    /**
+     * @param delegate the client that performs the calls
+     * @param metrics  the metrics the round trips are recorded in
+     */
+    public TimedBankClient(BankClient delegate, HouseMetrics metrics) {
+        this.delegate = delegate;
+        this.register = metrics.bankCall("register");
+        this.deregister = metrics.bankCall("deregister");
+        this.block = metrics.bankCall("blockFunds");
+        this.blockBatch = metrics.bankCall("blockFundsBatch");
+        this.unblock = metrics.bankCall("unblockFunds");
+        this.transfer = metrics.bankCall("transferFunds");
+        this.transferBatch = metrics.bankCall("transferFundsBatch");
+    }
+
+    @Override
+    public int registerAuctionHouse(String host, int port) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerAuctionHouse(host, port);
+        } finally {
+            register.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int registerAgent(String name, int initialBalance) {
+        long start = System.nanoTime();
+        try {
+            return delegate.registerAgent(name, initialBalance);
+        } finally {
+            register.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void deregister(int id) {
+        long start = System.nanoTime();
+        try {
+            delegate.deregister(id);
+        } finally {
+            deregister.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean blockFunds(int agentId, int amount) {
+        long start = System.nanoTime();
+        try {
+            return delegate.blockFunds(agentId, amount);
+        } finally {
+            block.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean[] blockFundsBatch(int[] agentIds, int[] amounts) {
+        long start = System.nanoTime();
+        try {
+            return delegate.blockFundsBatch(agentIds, amounts);
+        } finally {
+            blockBatch.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void unblockFunds(int agentId, int amount) {
+        long start = System.nanoTime();
+        try {
+            delegate.unblockFunds(agentId, amount);
+        } finally {
+            unblock.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void transferFunds(int fromAgentId, int toAuctionHouseId, int amount) {
+        long start = System.nanoTime();
+        try {
+            delegate.transferFunds(fromAgentId, toAuctionHouseId, amount);
+        } finally {
+            transfer.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean[] transferFundsBatch(int toAuctionHouseId, int[] itemIds, int[] agentIds,
+                                        int[] amounts) {
+        long start = System.nanoTime();
+        try {
+            return delegate.transferFundsBatch(toAuctionHouseId, itemIds, agentIds, amounts);
+        } finally {
+            transferBatch.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package auctionhouse;
+
+/**
+ * Token-bucket rate limiter.
+ * Tokens refill continuously at a fixed rate up to a burst capacity, and each
+ * admitted request spends tokens. Requests that find too few tokens are refused
+ * immediately rather than delayed.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Isaac Tapia
+ * @author Christian Maestas
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param ratePerSecond tokens added per second
+     * @param capacity      the maximum number of tokens that can accumulate
+     */
+    public TokenBucket(double ratePerSecond, int capacity) {
+        this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Spends tokens if enough are available.
+     *
+     * @param permits the number of tokens to spend
+     * @return true if the tokens were spent; false if the request should be refused
+     */
+    public synchronized boolean tryAcquire(int permits) {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+
+        if (tokens < permits) {
+            return false;
+        }
+        tokens -= permits;
+        return true;
+    }
+
+    /**
+     * Reports whether the bucket has been full for at least the given time.
+     * Such a bucket is indistinguishable from a new one, so it can be dropped.
+     *
+     * @param idleNanos how long the bucket must have been full
+     * @return true if the bucket has been full for {@code idleNanos} or longer
+     */
+    public synchronized boolean isIdle(long idleNanos) {
+        double missing = capacity - tokens;
+        long fullAt = missing <= 0 ? lastRefill
+                : tokensPerNano > 0 ? lastRefill + (long) Math.ceil(missing / tokensPerNano)
+                : Long.MAX_VALUE - idleNanos;
+        return System.nanoTime() - fullAt >= idleNanos;
+    }
+
+    /**
+     * Returns tokens spent on a request that was refused after all.
+     *
+     * @param permits the number of tokens to return
+     */
+    public synchronized void refund(int permits) {
+        tokens = Math.min(capacity, tokens + permits);
+    }
+}
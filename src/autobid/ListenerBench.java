@@ -0,0 +1,131 @@
+package autobid;
+
+import agent.Agent;
+import agent.AuctionManager;
+import auctionhouse.AuctionHouse;
+import auctionhouse.ItemManager;
+import bank.Bank;
+import bank.InProcessBankClient;
+import shared.Message;
+import shared.SocketAuctionClient;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listener Bench
+ *
+ * Measures how much CPU idle agents spend listening to auction houses.
+ * Starts a bank and several auction houses in this JVM, connects many agents
+ * to every house over real sockets, and once the catalogs are loaded reports
+ * the CPU time used by the listener threads and by the whole process while
+ * nothing happens. Each listener should be blocked in a read, so it fails if
+ * they use more than 1% of one core or do not stop once closed. Kept with the
+ * autobidder, whose jar already holds the bank, house and agent classes
+ *
+ * Usage: {@code java -cp autobidder.jar autobid.ListenerBench [agents] [houses] [seconds]}
+ *
+ * @author Christian Maestas
+ */
+public class ListenerBench {
+
+    /**
+     * Share of one core the idle listeners may use between them
+     */
+    private static final double MAX_IDLE_SHARE = 0.01;
+
+    public static void main(String[] args) throws Exception {
+        int agentCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int houseCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        InProcessBankClient bankClient = new InProcessBankClient(new Bank(0));
+
+        // A probe account's channel hears where each house is listening
+        BufferedReader houses = bankClient.openAgentChannel(
+                bankClient.registerAgent("probe", 0));
+        for (int i = 0; i < houseCount; i++) {
+            ItemManager itemManager = new ItemManager();
+            itemManager.loadItemsFromResource("items.txt");
+            AuctionHouse house = new AuctionHouse(0, bankClient, itemManager);
+            Thread thread = new Thread(house::start, "house-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        List<String[]> addresses = new ArrayList<>();
+        while (addresses.size() < houseCount) {
+            String[] parts = Message.decode(houses.readLine());
+            if (parts[0].equals("AUCTION_HOUSE")) {
+                addresses.add(parts);
+            }
+        }
+
+        List<Thread> listeners = new ArrayList<>();
+        List<AuctionManager> managers = new ArrayList<>();
+        for (int a = 0; a < agentCount; a++) {
+            String name = "agent" + a;
+            int agentId = bankClient.registerAgent(name, 10_000);
+            Agent agent = new Agent(null, name, agentId, bankClient);
+            for (String[] address : addresses) {
+                SocketAuctionClient client = new SocketAuctionClient();
+                client.connect(address[1], Integer.parseInt(address[2]), agentId);
+                AuctionManager manager = new AuctionManager(address[3], client, bankClient, agent);
+                Thread thread = new Thread(manager, "auction-manager-" + agentId + "-" + address[3]);
+                thread.setDaemon(true);
+                thread.start();
+                listeners.add(thread);
+                managers.add(manager);
+            }
+        }
+        System.out.printf("%d agents connected to %d houses: %d listener threads%n",
+                agentCount, houseCount, listeners.size());
+
+        // Let every catalog load and the JIT settle before measuring
+        Thread.sleep(2_000);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long listenerStart = listenerCpu(threads, listeners);
+        long processStart = os.getProcessCpuTime();
+        long wallStart = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        long wall = System.nanoTime() - wallStart;
+        long listenerCpu = listenerCpu(threads, listeners) - listenerStart;
+        long processCpu = os.getProcessCpuTime() - processStart;
+
+        System.out.printf("idle %ds: listener threads %.1f ms CPU (%.3f%% of one core), "
+                        + "process %.1f ms CPU (%.3f%% of one core)%n", seconds,
+                listenerCpu / 1e6, 100.0 * listenerCpu / wall,
+                processCpu / 1e6, 100.0 * processCpu / wall);
+
+        long closeStart = System.nanoTime();
+        for (AuctionManager manager : managers) {
+            manager.close();
+        }
+        for (Thread listener : listeners) {
+            listener.join(5_000);
+        }
+        long alive = listeners.stream().filter(Thread::isAlive).count();
+        System.out.printf("closed in %.1f ms, %d listeners still running%n",
+                (System.nanoTime() - closeStart) / 1e6, alive);
+        boolean passed = alive == 0 && listenerCpu <= wall * MAX_IDLE_SHARE;
+        System.out.println(passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static long listenerCpu(ThreadMXBean threads, List<Thread> listeners) {
+        long total = 0;
+        for (Thread listener : listeners) {
+            long cpu = threads.getThreadCpuTime(listener.getId());
+            if (cpu > 0) {
+                total += cpu;
+            }
+        }
+        return total;
+    }
+}
@@ -1,5 +1,8 @@
 package bank;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * Bank Account
  *
@@ -27,6 +30,11 @@ public class Account {
      * Blocked Funds
      */
     private int blockedFunds;
+    /**
+     * Items an Auction House has been paid for, so a resent settlement is
+     * not charged twice
+     */
+    private final Set<Integer> settledItems = new HashSet<>();
 
     /**
      * Account constructor with an ID, name, and initial balance
@@ -98,4 +106,21 @@ public class Account {
     public void setTotalBalance(int amount) {
         this.totalBalance += amount;
     }
-}
\ No newline at end of file
+
+    /**
+     * Check whether an Auction House has been paid for an item
+     * @param itemId item ID
+     * @return true if it has
+     */
+    public boolean isSettled(int itemId) {
+        return settledItems.contains(itemId);
+    }
+
+    /**
+     * Record that an Auction House has been paid for an item
+     * @param itemId item ID
+     */
+    public void markSettled(int itemId) {
+        settledItems.add(itemId);
+    }
+}
@@ -60,12 +60,37 @@ public class Bank {
             serverSocket = new ServerSocket(port);
             running.set(true);
             System.out.println("Bank server listening on port " + port);
+            startSharedMemory();
             listenForClients();
         } catch (IOException e) {
             System.err.println("Bank server failed to start: " + e.getMessage());
         }
     }
 
+    /**
+     * Serve auction houses on this machine through a shared memory ring as
+     * well, unless disabled with -Dbank.shm=false
+     */
+    private void startSharedMemory() {
+        if (!Boolean.parseBoolean(System.getProperty("bank.shm", "true"))) {
+            return;
+        }
+        try {
+            new SharedMemoryServer(port, accounts, initAccountID).start();
+        } catch (IOException e) {
+            System.err.println("Shared memory ring unavailable: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handler for clients running in this JVM, which call its operations
+     * directly instead of sending messages
+     * @return handler sharing this Bank's accounts
+     */
+    BankClientHandler newLocalHandler() {
+        return new BankClientHandler(accounts, initAccountID);
+    }
+
     /**
      * Listen for incoming clients to connect to server
      */
@@ -66,6 +66,16 @@ public class BankClientHandler implements Runnable {
         this.idGenerator = idGenerator;
     }
 
+    /**
+     * BankClientHandler for requests that do not arrive on a socket, such as
+     * the shared memory ring; replies go to the writer passed to each call
+     * @param accounts accounts
+     * @param idGenerator id generator
+     */
+    BankClientHandler(Map<Integer, Account> accounts, AtomicInteger idGenerator) {
+        this(null, accounts, idGenerator);
+    }
+
     /**
      * Listen for messages from clients to deal with auction bids
      */
@@ -79,29 +89,39 @@ public class BankClientHandler implements Runnable {
         ) {
             String line;
             while ((line = in.readLine()) != null) {
-                String[] parts = Message.decode(line);
-                if (parts.length == 0) {
-                    continue;
-                }
-
-                switch (parts[0]) {
-                    case "REGISTER_AUCTION_HOUSE" ->
-                            handleHouseRegistration(parts, out);
-                    case "REGISTER_AGENT" ->
-                            handleAgentRegistration(parts, out);
-                    case "BLOCK_FUNDS" -> blockFunds(parts, out);
-                    case "UNBLOCK_FUNDS" -> unblockFunds(parts, out);
-                    case "TRANSFER_FUNDS" -> transferFunds(parts, out);
-                    case "REGISTER_AGENT_CHANNEL" -> handleAgentChannel(parts, out);
-                    case "BALANCE" -> handleBalance(parts, out);
-                    case "DEREGISTER" -> handleDeregister(parts, out);
-                }
+                dispatch(Message.decode(line), out);
             }
         } catch (IOException e) {
             System.err.println("Bank client connection error: " + e.getMessage());
         }
     }
 
+    /**
+     * Run one client message, writing any reply to the given stream
+     * @param parts parts of message
+     * @param out output stream
+     */
+    void dispatch(String[] parts, PrintWriter out) {
+        if (parts.length == 0) {
+            return;
+        }
+
+        switch (parts[0]) {
+            case "REGISTER_AUCTION_HOUSE" ->
+                    handleHouseRegistration(parts, out);
+            case "REGISTER_AGENT" ->
+                    handleAgentRegistration(parts, out);
+            case "BLOCK_FUNDS" -> blockFunds(parts, out);
+            case "BLOCK_FUNDS_BATCH" -> blockFundsBatch(parts, out);
+            case "UNBLOCK_FUNDS" -> unblockFunds(parts, out);
+            case "TRANSFER_FUNDS" -> transferFunds(parts, out);
+            case "TRANSFER_FUNDS_BATCH" -> transferFundsBatch(parts, out);
+            case "REGISTER_AGENT_CHANNEL" -> handleAgentChannel(parts, out);
+            case "BALANCE" -> handleBalance(parts, out);
+            case "DEREGISTER" -> handleDeregister(parts, out);
+        }
+    }
+
     /**
      * When Agent registers with the Bank, it provides a name and an initial
      * balance and is given an account ID/number
@@ -124,15 +144,26 @@ public class BankClientHandler implements Runnable {
             return;
         }
 
-        int id = idGenerator.getAndIncrement();
-        accounts.put(id, new Account(id, name, true, initialBalance));
-        System.out.println("Agent registered: " + name);
+        int id = openAgentAccount(name, initialBalance);
         out.println("OK " + id);
 
         agentWriters.add(out);
         agentIdToWriter.put(id, out);
     }
 
+    /**
+     * Open an Agent account
+     * @param name agent name
+     * @param initialBalance initial balance
+     * @return account ID
+     */
+    int openAgentAccount(String name, int initialBalance) {
+        int id = idGenerator.getAndIncrement();
+        accounts.put(id, new Account(id, name, true, initialBalance));
+        System.out.println("Agent registered: " + name);
+        return id;
+    }
+
     /**
      * When an auction house registers with the bank, it will provide its host
      * and port information and will be given a unique account ID/number
@@ -145,8 +176,23 @@ public class BankClientHandler implements Runnable {
             return;
         }
 
-        String host = parts[1];
-        int port = Integer.parseInt(parts[2]);
+        int port;
+        try {
+            port = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            out.println("ERROR Invalid port");
+            return;
+        }
+        out.println("OK " + openHouseAccount(parts[1], port));
+    }
+
+    /**
+     * Open an Auction House account and tell every Agent about the new house
+     * @param host house host
+     * @param port house port
+     * @return account ID
+     */
+    int openHouseAccount(String host, int port) {
         int id = idGenerator.getAndIncrement();
         String name = "AuctionHouse" + houseNames.getAndIncrement();
 
@@ -163,8 +209,7 @@ public class BankClientHandler implements Runnable {
             writer.println(msg);
             writer.flush();
         }
-
-        out.println("OK " + id);
+        return id;
     }
 
     /**
@@ -181,7 +226,23 @@ public class BankClientHandler implements Runnable {
             return;
         }
 
-        int agentId = Integer.parseInt(parts[1]);
+        int agentId;
+        try {
+            agentId = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            out.println("ERROR Invalid agent ID");
+            return;
+        }
+        openAgentChannel(agentId, out);
+    }
+
+    /**
+     * Send an Agent's pushed messages to the given writer from now on, starting
+     * with every open Auction House
+     * @param agentId agent ID
+     * @param out channel writer
+     */
+    void openAgentChannel(int agentId, PrintWriter out) {
         agentWriters.add(out);
         agentIdToWriter.put(agentId, out);
 
@@ -208,27 +269,110 @@ public class BankClientHandler implements Runnable {
             out.println("ERROR Invalid BLOCK_FUNDS format");
             return;
         }
-        int agentId = Integer.parseInt(parts[1]);
-        int amount = Integer.parseInt(parts[2]);
+        int agentId;
+        int amount;
+        try {
+            agentId = Integer.parseInt(parts[1]);
+            amount = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            out.println("ERROR Invalid BLOCK_FUNDS format");
+            return;
+        }
 
-        Account account = accounts.get(agentId);
-        if (account == null || !account.isAgent) {
+        if (blockFunds(agentId, amount)) {
+            out.println("OK");
+        } else if (amount <= 0) {
+            out.println("ERROR Invalid amount");
+        } else if (agentAccount(agentId) == null) {
             out.println("ERROR Invalid agent ID");
+        } else {
+            out.println("ERROR Insufficient funds");
+        }
+    }
+
+    /**
+     * Block funds on an Agent account
+     * @param agentId agent ID
+     * @param amount amount to block
+     * @return true if the funds were blocked
+     */
+    boolean blockFunds(int agentId, int amount) {
+        FundsEvent event = FundsEvent.start("BLOCK_FUNDS");
+        boolean held = hold(agentId, amount);
+        event.complete(agentId, amount, held);
+        return held;
+    }
+
+    /**
+     * Block funds for several holds in one request, e.g. all winning bids of a
+     * call-auction round. Holds are applied in order, so an agent with several
+     * holds in the batch is checked against its remaining balance each time.
+     * Replies with {@code OK} followed by 1 or 0 for each hold; a hold that is
+     * not positive fails
+     * @param parts parts of message
+     * @param out output stream
+     */
+    private void blockFundsBatch(String[] parts, PrintWriter out) {
+        if (parts.length < 3 || parts.length % 2 == 0) {
+            out.println("ERROR Invalid BLOCK_FUNDS_BATCH format");
             return;
         }
 
-        PrintWriter writer = agentIdToWriter.get(agentId);
+        int count = (parts.length - 1) / 2;
+        int[] agentIds = new int[count];
+        int[] amounts = new int[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                agentIds[i] = Integer.parseInt(parts[2 * i + 1]);
+                amounts[i] = Integer.parseInt(parts[2 * i + 2]);
+            }
+        } catch (NumberFormatException e) {
+            out.println("ERROR Invalid BLOCK_FUNDS_BATCH format");
+            return;
+        }
+        out.println(flags(blockFundsBatch(agentIds, amounts)));
+    }
 
+    /**
+     * Block funds for several holds, in order
+     * @param agentIds agent IDs
+     * @param amounts amount to block for each agent
+     * @return for each hold, true if the funds were blocked
+     */
+    boolean[] blockFundsBatch(int[] agentIds, int[] amounts) {
+        FundsEvent event = FundsEvent.start("BLOCK_FUNDS_BATCH");
+        boolean[] held = new boolean[agentIds.length];
+        boolean allHeld = true;
+        int total = 0;
+        for (int i = 0; i < agentIds.length; i++) {
+            held[i] = hold(agentIds[i], amounts[i]);
+            allHeld &= held[i];
+            total += amounts[i];
+        }
+        event.complete(-1, total, allHeld);
+        return held;
+    }
+
+    /**
+     * Block funds if the Agent has enough available, and push the Agent its
+     * new balance. Holds must be positive, or they would raise the balance
+     * @param agentId agent ID
+     * @param amount amount to block
+     * @return true if the funds were blocked
+     */
+    private boolean hold(int agentId, int amount) {
+        Account account = agentAccount(agentId);
+        if (account == null || amount <= 0) {
+            return false;
+        }
         synchronized (account) {
             if (account.getAvailableBalance() < amount) {
-                out.println("ERROR Insufficient funds");
-            } else {
-                account.setBlockedFunds(amount);
-                out.println("OK");
-                writer.println(Message.encode("BALANCE", String.valueOf(account.getTotalBalance()),
-                        String.valueOf(account.getAvailableBalance())));
+                return false;
             }
+            account.setBlockedFunds(amount);
+            pushBalance(agentId, account);
         }
+        return true;
     }
 
     /**
@@ -241,19 +385,44 @@ public class BankClientHandler implements Runnable {
             out.println("ERROR Invalid UNBLOCK_FUNDS format");
             return;
         }
-        int agentId = Integer.parseInt(parts[1]);
-        int amount = Integer.parseInt(parts[2]);
+        int agentId;
+        int amount;
+        try {
+            agentId = Integer.parseInt(parts[1]);
+            amount = Integer.parseInt(parts[2]);
+        } catch (NumberFormatException e) {
+            out.println("ERROR Invalid UNBLOCK_FUNDS format");
+            return;
+        }
 
-        Account account = accounts.get(agentId);
-        if (account != null && account.isAgent) {
+        if (unblockFunds(agentId, amount)) {
+            out.println("OK");
+        } else if (amount <= 0) {
+            out.println("ERROR Invalid amount");
+        } else {
+            out.println("ERROR Invalid agent ID");
+        }
+    }
+
+    /**
+     * Unblock funds from Agent account
+     * @param agentId agent ID
+     * @param amount amount to unblock, which must be positive
+     * @return false if there is no such Agent or the amount is not positive
+     */
+    boolean unblockFunds(int agentId, int amount) {
+        FundsEvent event = FundsEvent.start("UNBLOCK_FUNDS");
+        Account account = amount > 0 ? agentAccount(agentId) : null;
+        if (account != null) {
             synchronized (account) {
                 account.setBlockedFunds(-amount);
-                out.println("OK");
                 if (account.getBlockedFunds() < 0) {
                     account.setBlockedFunds(0);
                 }
             }
         }
+        event.complete(agentId, amount, account != null);
+        return account != null;
     }
 
     /**
@@ -267,28 +436,151 @@ public class BankClientHandler implements Runnable {
             return;
         }
 
-        int fromId = Integer.parseInt(parts[1]);
-        int toId = Integer.parseInt(parts[2]);
-        int amount = Integer.parseInt(parts[3]);
-
-        Account from = accounts.get(fromId);
-        Account to = accounts.get(toId);
+        int fromId;
+        int toId;
+        int amount;
+        try {
+            fromId = Integer.parseInt(parts[1]);
+            toId = Integer.parseInt(parts[2]);
+            amount = Integer.parseInt(parts[3]);
+        } catch (NumberFormatException e) {
+            out.println("ERROR Invalid TRANSFER_FUNDS format");
+            return;
+        }
 
-        if (from == null || !from.isAgent || to == null || to.isAgent) {
+        Account from = agentAccount(fromId);
+        if (transferFunds(fromId, toId, amount)) {
+            synchronized (from) {
+                out.println(Message.encode("BALANCE", String.valueOf(from.getTotalBalance()),
+                        String.valueOf(from.getAvailableBalance())));
+            }
+        } else if (amount <= 0) {
+            out.println("ERROR Invalid amount");
+        } else if (from == null || houseAccount(toId) == null) {
             out.println("ERROR Invalid account IDs");
+        } else {
+            out.println("ERROR Not enough blocked funds");
+        }
+    }
+
+    /**
+     * Transfer blocked funds from an Agent to an Auction House
+     * @param fromId agent ID
+     * @param toId auction house ID
+     * @param amount amount to transfer
+     * @return true if the funds were moved
+     */
+    boolean transferFunds(int fromId, int toId, int amount) {
+        FundsEvent event = FundsEvent.start("TRANSFER_FUNDS");
+        event.houseId = toId;
+        Account to = houseAccount(toId);
+        boolean transferred = to != null && transfer(fromId, to, amount, false);
+        event.complete(fromId, amount, transferred);
+        return transferred;
+    }
+
+    /**
+     * Settle several sales for one Auction House in one request. Each
+     * item, agent and amount triple moves blocked funds from an Agent to the
+     * house, and the Agent is sent its new balance on its bank channel.
+     * Replies with {@code OK} followed by 1 or 0 for each transfer; a transfer
+     * that is not positive fails
+     * @param parts parts of message
+     * @param out output stream
+     */
+    private void transferFundsBatch(String[] parts, PrintWriter out) {
+        if (parts.length < 5 || (parts.length - 2) % 3 != 0) {
+            out.println("ERROR Invalid TRANSFER_FUNDS_BATCH format");
             return;
         }
 
+        int toId;
+        int count = (parts.length - 2) / 3;
+        int[] itemIds = new int[count];
+        int[] agentIds = new int[count];
+        int[] amounts = new int[count];
+        try {
+            toId = Integer.parseInt(parts[1]);
+            for (int i = 0; i < count; i++) {
+                itemIds[i] = Integer.parseInt(parts[3 * i + 2]);
+                agentIds[i] = Integer.parseInt(parts[3 * i + 3]);
+                amounts[i] = Integer.parseInt(parts[3 * i + 4]);
+            }
+        } catch (NumberFormatException e) {
+            out.println("ERROR Invalid TRANSFER_FUNDS_BATCH format");
+            return;
+        }
+
+        boolean[] transferred = transferFundsBatch(toId, itemIds, agentIds, amounts);
+        out.println(transferred == null ? "ERROR Invalid account IDs" : flags(transferred));
+    }
+
+    /**
+     * Settle several sales for one Auction House. An item the house has
+     * already been paid for reports success without moving funds again, so a
+     * batch whose reply was lost can be resent
+     * @param toId auction house ID
+     * @param itemIds the sold items
+     * @param agentIds agent IDs
+     * @param amounts amount to transfer from each agent
+     * @return for each transfer, true if the funds were moved, or null if
+     * there is no such Auction House
+     */
+    boolean[] transferFundsBatch(int toId, int[] itemIds, int[] agentIds, int[] amounts) {
+        Account to = houseAccount(toId);
+        if (to == null) {
+            return null;
+        }
+
+        FundsEvent event = FundsEvent.start("TRANSFER_FUNDS_BATCH");
+        event.houseId = toId;
+        boolean[] transferred = new boolean[agentIds.length];
+        boolean allTransferred = true;
+        int total = 0;
+        for (int i = 0; i < agentIds.length; i++) {
+            // Checked and recorded under the house lock, so a resent batch
+            // racing the original cannot pay for the same item twice
+            synchronized (to) {
+                if (to.isSettled(itemIds[i])) {
+                    transferred[i] = true;
+                } else {
+                    transferred[i] = transfer(agentIds[i], to, amounts[i], true);
+                    if (transferred[i]) {
+                        to.markSettled(itemIds[i]);
+                    }
+                }
+            }
+            allTransferred &= transferred[i];
+            total += amounts[i];
+        }
+        event.complete(-1, total, allTransferred);
+        return transferred;
+    }
+
+    /**
+     * Move blocked funds from an Agent to an Auction House
+     * @param fromId agent ID
+     * @param to auction house account
+     * @param amount amount to transfer
+     * @param push whether to push the Agent its new balance
+     * @return true if the Agent had enough blocked funds. Transfers must be
+     * positive, or they would move money from the house to the Agent
+     */
+    private boolean transfer(int fromId, Account to, int amount, boolean push) {
+        Account from = agentAccount(fromId);
+        if (from == null || amount <= 0) {
+            return false;
+        }
         synchronized (from) {
             if (from.getBlockedFunds() < amount) {
-                out.println("ERROR Not enough blocked funds");
-                return;
+                return false;
             }
             //Remove funds from Agent blocked and total balance
             from.setBlockedFunds(-amount);
             from.setTotalBalance(-amount);
-            out.println(Message.encode("BALANCE", String.valueOf(from.getTotalBalance()),
-                    String.valueOf(from.getAvailableBalance())));
+            if (push) {
+                pushBalance(fromId, from);
+            }
         }
 
         synchronized (to) {
@@ -297,6 +589,51 @@ public class BankClientHandler implements Runnable {
         }
         System.out.println("Funds transferred from: " + from.getName() + " to "
                 + to.getName());
+        return true;
+    }
+
+    /**
+     * @param agentId account ID
+     * @return the Agent account, or null if there is none
+     */
+    private Account agentAccount(int agentId) {
+        Account account = accounts.get(agentId);
+        return account != null && account.isAgent ? account : null;
+    }
+
+    /**
+     * @param houseId account ID
+     * @return the Auction House account, or null if there is none
+     */
+    private Account houseAccount(int houseId) {
+        Account account = accounts.get(houseId);
+        return account != null && !account.isAgent ? account : null;
+    }
+
+    /**
+     * Send an Agent its balance on its bank channel, if it has one
+     * @param agentId agent ID
+     * @param account agent account
+     */
+    private void pushBalance(int agentId, Account account) {
+        PrintWriter writer = agentIdToWriter.get(agentId);
+        if (writer != null) {
+            writer.println(Message.encode("BALANCE", String.valueOf(account.getTotalBalance()),
+                    String.valueOf(account.getAvailableBalance())));
+        }
+    }
+
+    /**
+     * Format batch results as {@code OK} followed by 1 or 0 for each entry
+     * @param results batch results
+     * @return reply line
+     */
+    private static String flags(boolean[] results) {
+        StringBuilder reply = new StringBuilder("OK");
+        for (boolean result : results) {
+            reply.append(result ? " 1" : " 0");
+        }
+        return reply.toString();
     }
 
     /**
@@ -356,16 +693,28 @@ public class BankClientHandler implements Runnable {
             return;
         }
 
-        Account account = accounts.get(clientID);
-        if (account == null) {
+        if (!closeAccount(clientID)) {
             out.println("ERROR Account not found");
             return;
         }
+        out.println("OK");
+    }
+
+    /**
+     * Close a client's channel. An Agent stops receiving pushed messages; an
+     * Auction House is removed from the open houses and every Agent is told
+     * @param clientID account ID
+     * @return false if there is no such account
+     */
+    boolean closeAccount(int clientID) {
+        Account account = accounts.get(clientID);
+        if (account == null) {
+            return false;
+        }
 
         if (account.isAgent) {
-            agentIdToWriter.remove(clientID);
-            agentWriters.removeIf(writer -> writer.equals(agentIdToWriter.get(clientID)));
-            out.println("OK");
+            PrintWriter channel = agentIdToWriter.remove(clientID);
+            agentWriters.removeIf(writer -> writer.equals(channel));
             System.out.printf("Agent %d deregistered.\n", clientID);
         } else {
             String hostPort = auctionHouseAddresses.remove(clientID);
@@ -378,7 +727,7 @@ public class BankClientHandler implements Runnable {
                     writer.flush();
                 }
             }
-            out.println("OK");
         }
+        return true;
     }
-}
\ No newline at end of file
+}
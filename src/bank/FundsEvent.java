@@ -0,0 +1,77 @@
+package bank;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Funds Event
+ *
+ * Java Flight Recorder event for a hold, release or transfer handled by the
+ * bank, matching the auction house's bid lifecycle events
+ *
+ * @author Christian Maestas
+ */
+@Name("bank.Funds")
+@Label("Bank Funds Operation")
+@Category({"Auction", "Bank"})
+@Description("A hold, release or transfer of an agent's funds")
+@StackTrace(false)
+class FundsEvent extends Event {
+    /**
+     * Bank command, e.g. BLOCK_FUNDS
+     */
+    @Label("Operation")
+    String operation;
+    /**
+     * Agent account, or -1 for a batch
+     */
+    @Label("Agent ID")
+    int agentId;
+    /**
+     * Auction house account for transfers, otherwise -1
+     */
+    @Label("Auction House ID")
+    int houseId = -1;
+    /**
+     * Amount, or the total of a batch
+     */
+    @Label("Amount")
+    int amount;
+    /**
+     * Whether the operation succeeded
+     */
+    @Label("Success")
+    boolean success;
+
+    /**
+     * Start timing an operation
+     * @param operation bank command
+     * @return started event
+     */
+    static FundsEvent start(String operation) {
+        FundsEvent event = new FundsEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finish timing and record the operation if recording is on
+     * @param agentId agent account
+     * @param amount amount
+     * @param success whether it succeeded
+     */
+    void complete(int agentId, int amount, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.agentId = agentId;
+            this.amount = amount;
+            this.success = success;
+            commit();
+        }
+    }
+}
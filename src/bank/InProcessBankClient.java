@@ -0,0 +1,88 @@
+package bank;
+
+import shared.BankClient;
+import shared.LineQueue;
+
+import java.io.BufferedReader;
+
+/**
+ * In Process Bank Client
+ *
+ * Bank client for Agents and Auction Houses running in the same JVM as the
+ * Bank, e.g. for simulations and benchmarks. Each operation is a direct call
+ * into the same handler logic socket clients reach, with no messages encoded,
+ * sent or parsed, so timing it measures the Bank's work alone. The Bank does
+ * not need to be started
+ *
+ * @author Christian Maestas
+ */
+public class InProcessBankClient implements BankClient {
+    /**
+     * Handler running the operations
+     */
+    private final BankClientHandler handler;
+
+    /**
+     * InProcessBankClient constructor
+     * @param bank bank holding the accounts
+     */
+    public InProcessBankClient(Bank bank) {
+        this.handler = bank.newLocalHandler();
+    }
+
+    /**
+     * Open an Agent's channel for pushed messages, as REGISTER_AGENT_CHANNEL
+     * does for socket Agents. The reader first gets an AUCTION_HOUSE line for
+     * every open house, then BALANCE, AUCTION_HOUSE and REMOVE_AUCTION_HOUSE
+     * lines as they happen
+     * @param agentId agent ID
+     * @return reader for the pushed lines
+     */
+    public BufferedReader openAgentChannel(int agentId) {
+        LineQueue channel = new LineQueue();
+        handler.openAgentChannel(agentId, channel.writer());
+        return channel.reader();
+    }
+
+    @Override
+    public int registerAuctionHouse(String host, int port) {
+        return handler.openHouseAccount(host, port);
+    }
+
+    @Override
+    public int registerAgent(String name, int initialBalance) {
+        return handler.openAgentAccount(name, initialBalance);
+    }
+
+    @Override
+    public void deregister(int id) {
+        handler.closeAccount(id);
+    }
+
+    @Override
+    public boolean blockFunds(int agentId, int amount) {
+        return handler.blockFunds(agentId, amount);
+    }
+
+    @Override
+    public boolean[] blockFundsBatch(int[] agentIds, int[] amounts) {
+        return handler.blockFundsBatch(agentIds, amounts);
+    }
+
+    @Override
+    public void unblockFunds(int agentId, int amount) {
+        handler.unblockFunds(agentId, amount);
+    }
+
+    @Override
+    public void transferFunds(int fromAgentId, int toAuctionHouseId, int amount) {
+        handler.transferFunds(fromAgentId, toAuctionHouseId, amount);
+    }
+
+    @Override
+    public boolean[] transferFundsBatch(int toAuctionHouseId, int[] itemIds, int[] agentIds,
+                                        int[] amounts) {
+        boolean[] transferred = handler.transferFundsBatch(toAuctionHouseId, itemIds, agentIds, amounts);
+        return transferred != null ? transferred : new boolean[agentIds.length];
+    }
+}
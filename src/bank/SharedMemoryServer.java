@@ -0,0 +1,131 @@
+package bank;
+
+import shared.Message;
+import shared.SharedMemoryRing;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared Memory Server
+ *
+ * Serves bank requests from auction houses on the same machine through a
+ * memory-mapped ring instead of a socket. One thread polls the ring and runs
+ * each request through the same handler logic as socket clients, spinning
+ * while requests keep arriving and backing off to a millisecond sleep when
+ * the ring is idle. About once a second it also frees slots held by auction
+ * houses that exited before reading their reply
+ *
+ * @author Christian Maestas
+ */
+public class SharedMemoryServer implements Runnable {
+    /**
+     * Idle polls after which the back-off is at its longest sleep
+     */
+    private static final int MAX_IDLE = 1 << 16;
+    /**
+     * Time between sweeps for slots of exited auction houses
+     */
+    private static final long REAP_NANOS = 1_000_000_000L;
+    /**
+     * Ring shared with the auction houses
+     */
+    private final SharedMemoryRing ring;
+    /**
+     * Ring file, removed when the bank exits
+     */
+    private final Path path;
+    /**
+     * Handler running the requests
+     */
+    private final BankClientHandler handler;
+    /**
+     * Reply buffer reused for every request
+     */
+    private final StringWriter reply = new StringWriter();
+    /**
+     * Writer over the reply buffer
+     */
+    private final PrintWriter out = new PrintWriter(reply);
+
+    /**
+     * SharedMemoryServer constructor, creating the ring file for the bank's port
+     * @param port bank port
+     * @param accounts accounts
+     * @param idGenerator id generator
+     * @throws IOException if the ring cannot be created
+     */
+    public SharedMemoryServer(int port, Map<Integer, Account> accounts, AtomicInteger idGenerator)
+            throws IOException {
+        this.path = SharedMemoryRing.pathFor(port);
+        this.ring = SharedMemoryRing.create(path);
+        this.handler = new BankClientHandler(accounts, idGenerator);
+        path.toFile().deleteOnExit();
+    }
+
+    /**
+     * Start serving the ring on a daemon thread
+     */
+    public void start() {
+        Thread thread = new Thread(this, "bank-shared-memory");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Bank shared memory ring at " + path);
+    }
+
+    /**
+     * Poll the ring for requests and answer them
+     */
+    @Override
+    public void run() {
+        int next = 0;
+        int idle = 0;
+        long lastReap = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            // Reap on this thread, so a slot is never freed while being answered
+            if (System.nanoTime() - lastReap > REAP_NANOS) {
+                lastReap = System.nanoTime();
+                int freed = ring.reapDead();
+                if (freed > 0) {
+                    System.out.println("Freed " + freed + " shared memory slots of exited auction houses");
+                }
+            }
+            int slot = ring.nextRequest(next);
+            if (slot < 0) {
+                SharedMemoryRing.backOff(idle);
+                // Stop counting once at the longest sleep, so it never wraps
+                // back to spinning
+                idle = Math.min(idle + 1, MAX_IDLE);
+                continue;
+            }
+            idle = 0;
+            next = (slot + 1) % SharedMemoryRing.SLOTS;
+            ring.respond(slot, handle(ring.readRequest(slot)));
+        }
+    }
+
+    /**
+     * Run one request and return its first reply line
+     * @param line request
+     * @return reply, or ERROR if the request produced none
+     */
+    private String handle(String line) {
+        reply.getBuffer().setLength(0);
+        try {
+            handler.dispatch(Message.decode(line), out);
+        } catch (RuntimeException e) {
+            return "ERROR " + e.getMessage();
+        }
+        out.flush();
+        String text = reply.toString();
+        int end = text.indexOf('\n');
+        if (end < 0) {
+            return text.isEmpty() ? "ERROR No reply" : text;
+        }
+        return text.substring(0, end).stripTrailing();
+    }
+}
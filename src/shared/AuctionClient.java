@@ -26,6 +26,19 @@ public interface AuctionClient {
      */
     void connect(String host, int port, int agentId) throws IOException;
 
+    /**
+     * Opens a new connection to the same auction house after the previous one
+     * dropped, resuming from the last change-log version received. The house
+     * then sends the changes and personal notifications missed in between,
+     * ending with {@code SYNCED}, or {@code RESYNC} if the caller must reload
+     * the catalog.
+     *
+     * @return true if the house will send what was missed; false if no version
+     * has been received yet and the caller must reload the catalog itself
+     * @throws IOException if the connection fails or is rejected
+     */
+    boolean reconnect() throws IOException;
+
     /**
      * @return the ID of the agent connected to the auction house
      */
@@ -40,13 +53,78 @@ public interface AuctionClient {
     List<String[]> getAvailableItems() throws IOException;
 
     /**
-     * Sends a bid for a specific item to the auction house.
+     * Requests one page of auction items matching the given query.
+     * The query is advanced to the next page, so callers can repeat the call
+     * while {@link ListQuery#hasMore()} is true.
+     *
+     * @param query the sort order, price range, cursor, and page size
+     * @return list of item data arrays for this page
+     * @throws IOException if communication fails
+     */
+    List<String[]> getAvailableItems(ListQuery query) throws IOException;
+
+    /**
+     * Searches the descriptions of the auction house's active and pending items.
+     * Each result array holds the RESULT tokens: ID, quoted description words,
+     * minimum bid, current bid, ACTIVE or PENDING, and relevance score.
+     *
+     * @param query free text to search for
+     * @param limit the maximum number of results
+     * @return ranked results, best first
+     * @throws IOException if communication fails
+     */
+    List<String[]> search(String query, int limit) throws IOException;
+
+    /**
+     * Sends a bid for a specific item to the auction house under a new sequence
+     * number. The outcome arrives as {@code SEQ <sequence>} followed by the
+     * ACCEPTED, QUEUED or REJECTED reply.
      *
      * @param itemId the ID of the item to bid on
      * @param amount the bid amount
+     * @return the sequence number the bid was sent with
+     * @throws IOException if communication fails
+     */
+    long placeBid(int itemId, int amount) throws IOException;
+
+    /**
+     * Resends a bid whose outcome was not received, for example after a
+     * timeout or reconnect. If the auction house already processed it, the
+     * original outcome is sent again and no second hold is placed.
+     *
+     * @param sequence the sequence number returned by {@link #placeBid(int, int)}
+     * @param itemId   the ID of the item to bid on
+     * @param amount   the bid amount
+     * @throws IOException if communication fails
+     */
+    void resendBid(long sequence, int itemId, int amount) throws IOException;
+
+    /**
+     * Sends bids on several items in one BIDS command. The auction house
+     * answers with a single RESULTS line giving the outcome for each item.
+     *
+     * @param itemIds the IDs of the items to bid on
+     * @param amounts the bid amount for each item, in the same order
+     * @throws IOException if communication fails
+     */
+    void placeBids(int[] itemIds, int[] amounts) throws IOException;
+
+    /**
+     * Subscribes to an item's recent bid history. The auction house replies with
+     * a HISTORY snapshot, then sends a PRICE line for each later accepted bid.
+     *
+     * @param itemId the ID of the item to follow
+     * @throws IOException if communication fails
+     */
+    void subscribeHistory(int itemId) throws IOException;
+
+    /**
+     * Ends a history subscription started by {@link #subscribeHistory(int)}.
+     *
+     * @param itemId the ID of the item followed
      * @throws IOException if communication fails
      */
-    void placeBid(int itemId, int amount) throws IOException;
+    void unsubscribeHistory(int itemId) throws IOException;
 
     /**
      * Sends a quit command and closes the socket connection.
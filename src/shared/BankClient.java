@@ -46,6 +46,16 @@ public interface BankClient {
      */
     boolean blockFunds(int agentId, int amount);
 
+    /**
+     * Requests the bank to block funds for several holds in a single request.
+     * Holds are applied in order, each against the agent's remaining balance.
+     *
+     * @param agentIds the agents' account IDs
+     * @param amounts  the amount to block for each agent, in the same order
+     * @return for each hold, true if the funds were blocked
+     */
+    boolean[] blockFundsBatch(int[] agentIds, int[] amounts);
+
     /**
      * Requests the bank to unblock previously blocked funds.
      *
@@ -62,5 +72,18 @@ public interface BankClient {
      * @param amount           the amount to transfer
      */
     void transferFunds(int fromAgentId, int toAuctionHouseId, int amount);
-}
 
+    /**
+     * Settles several sales for one auction house in a single request,
+     * transferring each agent's blocked funds to the house. The bank pays a
+     * house at most once per item, so a batch may be resent when its outcome
+     * is unknown; entries already settled are reported as transferred.
+     *
+     * @param toAuctionHouseId the auction house's account ID
+     * @param itemIds          the sold items
+     * @param agentIds         the winning agents' account IDs, in the same order
+     * @param amounts          the amount to transfer from each agent, in the same order
+     * @return for each transfer, true if the funds were moved
+     */
+    boolean[] transferFundsBatch(int toAuctionHouseId, int[] itemIds, int[] agentIds, int[] amounts);
+}
@@ -0,0 +1,373 @@
+package shared;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client side of the agent protocol, independent of how lines reach the
+ * auction house. Subclasses open the transport and carry lines both ways;
+ * this class runs the handshake, formats the commands and reads the replies,
+ * so every transport behaves the same to the agent.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Dustin Ferguson
+ * @author Christian Maestas
+ * @author Isaac Tapia
+ */
+public abstract class LineAuctionClient implements AuctionClient {
+
+    private VersionedReader in;
+    private String host;
+    private int port;
+    private int agentId;
+    // Latest change-log version received from the house, 0 before the first
+    private volatile long version = 0;
+    // Seeded from the clock so numbers stay increasing across agent restarts
+    private final AtomicLong nextSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    /**
+     * Establishes a connection to the auction house server and registers the agent.
+     *
+     * @param host    the auction house host address
+     * @param port    the auction house port
+     * @param agentId the unique ID of the agent
+     * @throws IOException if the connection fails or is rejected
+     */
+    @Override
+    public void connect(String host, int port, int agentId) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.agentId = agentId;
+        version = 0;
+        open();
+    }
+
+    /**
+     * Opens a new connection to the same auction house after the previous one
+     * dropped, resuming from the last change-log version received. The house
+     * then sends the changes and personal notifications missed in between,
+     * ending with {@code SYNCED}, or {@code RESYNC} if the caller must reload
+     * the catalog.
+     *
+     * @return true if the house will send what was missed; false if no version
+     * has been received yet and the caller must reload the catalog itself
+     * @throws IOException if the connection fails or is rejected
+     */
+    @Override
+    public boolean reconnect() throws IOException {
+        closeTransport();
+        long resumeFrom = version;
+        open();
+        return resumeFrom > 0;
+    }
+
+    /**
+     * @return the latest change-log version received, or 0 if none
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Opens the transport and sends {@code AGENT <id> <version> [DEFLATE]},
+     * reading the WELCOME reply. Packed replies are unpacked by the reader
+     * whether or not the house agreed to compress.
+     */
+    private void open() throws IOException {
+        in = new VersionedReader(openTransport(host, port));
+
+        String handshake = Message.encode("AGENT", String.valueOf(agentId), String.valueOf(version));
+        sendLine(requestsCompression() ? Message.encode(handshake, LineCompression.DEFLATE) : handshake);
+        String response = in.readLine();
+        if (response == null || !response.startsWith("WELCOME")) {
+            closeTransport();
+            throw new IOException("Connection rejected: " + response);
+        }
+    }
+
+    /**
+     * Opens a new connection to an auction house.
+     *
+     * @param host the auction house host address
+     * @param port the auction house port
+     * @return the reader for lines from the house
+     * @throws IOException if the connection fails
+     */
+    protected abstract BufferedReader openTransport(String host, int port) throws IOException;
+
+    /**
+     * Sends one protocol line to the auction house.
+     *
+     * @param line the message, without a line terminator
+     * @throws IOException if communication fails
+     */
+    protected abstract void sendLine(String line) throws IOException;
+
+    /**
+     * Closes the current connection, if it is open.
+     *
+     * @throws IOException if closing fails
+     */
+    protected abstract void closeTransport() throws IOException;
+
+    /**
+     * @return true to ask the house to pack large replies; transports where
+     * reply size costs nothing may decline
+     */
+    protected boolean requestsCompression() {
+        return true;
+    }
+
+    /**
+     * @return the ID of the agent connected to the auction house
+     */
+    public int getAgentId() {
+        return agentId;
+    }
+
+    /**
+     * Requests a list of available auction items from the auction house.
+     *
+     * @return list of item data arrays received from the auction house
+     * @throws IOException if communication fails
+     */
+    @Override
+    public List<String[]> getAvailableItems() throws IOException {
+        List<String[]> items = new ArrayList<>();
+        sendLine("LIST");
+        readReply(items, "ITEM", "END_ITEMS");
+        return items;
+    }
+
+    /**
+     * Requests one page of auction items matching the given query.
+     * The query is advanced to the next page, so callers can repeat the call
+     * while {@link ListQuery#hasMore()} is true.
+     *
+     * @param query the sort order, price range, cursor, and page size
+     * @return list of item data arrays for this page
+     * @throws IOException if communication fails
+     */
+    @Override
+    public List<String[]> getAvailableItems(ListQuery query) throws IOException {
+        List<String[]> items = new ArrayList<>();
+        sendLine(query.encode());
+        String[] end = readReply(items, "ITEM", "END_ITEMS");
+        query.advance(end != null && end.length > 1 ? end[1] : null);
+        return items;
+    }
+
+    /**
+     * Searches the descriptions of the auction house's active and pending items.
+     * Each result array holds the RESULT tokens: ID, quoted description words,
+     * minimum bid, current bid, ACTIVE or PENDING, and relevance score.
+     *
+     * @param query free text to search for
+     * @param limit the maximum number of results
+     * @return ranked results, best first
+     * @throws IOException if communication fails
+     */
+    @Override
+    public List<String[]> search(String query, int limit) throws IOException {
+        List<String[]> results = new ArrayList<>();
+        sendLine(Message.encode("SEARCH", String.valueOf(limit), query));
+        readReply(results, "RESULT", "END_RESULTS");
+        return results;
+    }
+
+    /**
+     * Reads the rows of a multi-line reply up to its end marker. Any other
+     * line arriving in between, such as an ITEM_UPDATED broadcast or an OUTBID
+     * notification, is set aside and handed to the listener by the next reads
+     * of {@link #getInputStream()}, in the order it arrived.
+     *
+     * @param rows    receives the decoded rows
+     * @param rowType the first token of a row
+     * @param endType the first token of the end marker
+     * @return the decoded end marker, or null if the connection closed first
+     * @throws IOException if communication fails
+     */
+    private String[] readReply(List<String[]> rows, String rowType, String endType) throws IOException {
+        String line;
+        while ((line = in.readFromHouse()) != null) {
+            String[] parts = Message.decode(line);
+            if (parts[0].equals(endType)) {
+                return parts;
+            }
+            if (parts[0].equals(rowType)) {
+                rows.add(parts);
+            } else {
+                in.defer(line);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends a bid for a specific item to the auction house under a new sequence
+     * number. The outcome arrives as {@code SEQ <sequence>} followed by the
+     * ACCEPTED, QUEUED or REJECTED reply.
+     *
+     * @param itemId the ID of the item to bid on
+     * @param amount the bid amount
+     * @return the sequence number the bid was sent with
+     * @throws IOException if communication fails
+     */
+    @Override
+    public long placeBid(int itemId, int amount) throws IOException {
+        long sequence = nextSequence.incrementAndGet();
+        resendBid(sequence, itemId, amount);
+        return sequence;
+    }
+
+    /**
+     * Resends a bid whose outcome was not received, for example after a
+     * timeout or reconnect. If the auction house already processed it, the
+     * original outcome is sent again and no second hold is placed.
+     *
+     * @param sequence the sequence number returned by {@link #placeBid(int, int)}
+     * @param itemId   the ID of the item to bid on
+     * @param amount   the bid amount
+     * @throws IOException if communication fails
+     */
+    @Override
+    public void resendBid(long sequence, int itemId, int amount) throws IOException {
+        sendLine(Message.encode("BID", String.valueOf(itemId), String.valueOf(amount),
+                String.valueOf(sequence)));
+    }
+
+    /**
+     * Sends bids on several items in one BIDS command. The auction house
+     * answers with a single RESULTS line giving the outcome for each item.
+     *
+     * @param itemIds the IDs of the items to bid on
+     * @param amounts the bid amount for each item, in the same order
+     * @throws IOException if communication fails
+     */
+    @Override
+    public void placeBids(int[] itemIds, int[] amounts) throws IOException {
+        String[] args = new String[itemIds.length * 2];
+        for (int i = 0; i < itemIds.length; i++) {
+            args[2 * i] = String.valueOf(itemIds[i]);
+            args[2 * i + 1] = String.valueOf(amounts[i]);
+        }
+        sendLine(Message.encode("BIDS", args));
+    }
+
+    /**
+     * Subscribes to an item's recent bid history. The auction house replies with
+     * a HISTORY snapshot, then sends a PRICE line for each later accepted bid.
+     *
+     * @param itemId the ID of the item to follow
+     * @throws IOException if communication fails
+     */
+    @Override
+    public void subscribeHistory(int itemId) throws IOException {
+        sendLine(Message.encode("HISTORY", String.valueOf(itemId)));
+    }
+
+    /**
+     * Ends a history subscription started by {@link #subscribeHistory(int)}.
+     *
+     * @param itemId the ID of the item followed
+     * @throws IOException if communication fails
+     */
+    @Override
+    public void unsubscribeHistory(int itemId) throws IOException {
+        sendLine(Message.encode("HISTORY", String.valueOf(itemId), "OFF"));
+    }
+
+    /**
+     * Sends a quit command and closes the connection.
+     *
+     * @throws IOException if closing the connection fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            sendLine("QUIT");
+        }
+        closeTransport();
+    }
+
+    /**
+     * Provides access to the connection's input stream for external listener threads.
+     *
+     * @return the buffered input stream from the auction house
+     */
+    @Override
+    public BufferedReader getInputStream() {
+        return in;
+    }
+
+    /**
+     * Reader that unpacks compressed replies and strips the {@code V <version>}
+     * prefix from versioned lines, remembering the version, so listeners see
+     * the usual messages. Lines set aside while a reply was read come first.
+     */
+    private class VersionedReader extends BufferedReader {
+
+        private final BufferedReader source;
+        private final Deque<String> unpacked = new ArrayDeque<>();
+        private final Deque<String> deferred = new ArrayDeque<>();
+
+        VersionedReader(BufferedReader source) {
+            super(Reader.nullReader());
+            this.source = source;
+        }
+
+        @Override
+        public boolean ready() throws IOException {
+            return !deferred.isEmpty() || !unpacked.isEmpty() || source.ready();
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            String line = deferred.poll();
+            return line != null ? line : readFromHouse();
+        }
+
+        /**
+         * Keeps a line for the listener's next read.
+         */
+        void defer(String line) {
+            deferred.add(line);
+        }
+
+        /**
+         * Reads the next line from the house, skipping lines set aside.
+         */
+        String readFromHouse() throws IOException {
+            String line = unpacked.poll();
+            if (line == null) {
+                line = source.readLine();
+                if (line != null && line.startsWith(LineCompression.PACKED + " ")) {
+                    try {
+                        unpacked.addAll(LineCompression.unpack(line));
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException(e.getMessage(), e);
+                    }
+                    line = unpacked.poll();
+                }
+            }
+            if (line != null && line.startsWith("V ")) {
+                String[] parts = line.split(" ", 3);
+                version = Long.parseLong(parts[1]);
+                return parts.length > 2 ? parts[2] : "";
+            }
+            return line;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package shared;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Packs a run of protocol lines into one deflate-compressed line, for large
+ * replies such as a full {@code LIST} that repeat the same words many times.
+ * <p>
+ * A packed reply is sent as {@code Z <length> <base64>}, where {@code length}
+ * is the size in bytes of the original lines joined by newlines. Unpacking it
+ * gives back exactly the lines that would have been sent, so the receiver
+ * handles them as usual. Only agents that add {@code DEFLATE} to their
+ * {@code AGENT} handshake, and whose WELCOME echoes it, are sent packed replies.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Dustin Ferguson
+ * @author Christian Maestas
+ * @author Isaac Tapia
+ */
+public class LineCompression {
+
+    /**
+     * Command starting a packed reply.
+     */
+    public static final String PACKED = "Z";
+
+    /**
+     * Compression method agents may request in the {@code AGENT} handshake.
+     */
+    public static final String DEFLATE = "DEFLATE";
+
+    /**
+     * Largest unpacked reply accepted, in bytes, so a corrupt or hostile
+     * length cannot exhaust the receiver's memory.
+     */
+    public static final int MAX_LENGTH = 64 * 1024 * 1024;
+
+    private LineCompression() {
+    }
+
+    /**
+     * Packs lines into a single {@code Z} line.
+     *
+     * @param lines the lines to pack, without line terminators
+     * @param level the deflate level, 1 (fastest) to 9 (smallest)
+     * @return the packed line
+     */
+    public static String pack(List<String> lines, int level) {
+        byte[] raw = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream packed = new ByteArrayOutputStream(raw.length / 4 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                packed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return Message.encode(PACKED, String.valueOf(raw.length),
+                    Base64.getEncoder().encodeToString(packed.toByteArray()));
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Unpacks a {@code Z} line into the lines it carries.
+     *
+     * @param line the packed line
+     * @return the original lines, in order
+     * @throws IllegalArgumentException if the line is not a valid packed reply
+     */
+    public static List<String> unpack(String line) {
+        String[] parts = line.split(" ", 3);
+        if (parts.length != 3 || !parts[0].equals(PACKED)) {
+            throw new IllegalArgumentException("Not a packed reply");
+        }
+        int rawLength;
+        try {
+            rawLength = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid packed reply length", e);
+        }
+        if (rawLength <= 0 || rawLength > MAX_LENGTH) {
+            throw new IllegalArgumentException("Packed reply length out of range: " + rawLength);
+        }
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            // Base64 errors are IllegalArgumentExceptions already
+            inflater.setInput(Base64.getDecoder().decode(parts[2]));
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && inflater.needsInput()) break;
+                length += n;
+            }
+            if (length != raw.length) {
+                throw new IllegalArgumentException("Packed reply is truncated");
+            }
+            // The data must end where the length says, not be cut short by it
+            if (!inflater.finished() && inflater.inflate(new byte[1]) > 0) {
+                throw new IllegalArgumentException("Packed reply is longer than its length");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt packed reply", e);
+        } finally {
+            inflater.end();
+        }
+
+        List<String> lines = new ArrayList<>();
+        String text = new String(raw, StandardCharsets.UTF_8);
+        int start = 0;
+        for (int end; (end = text.indexOf('\n', start)) >= 0; start = end + 1) {
+            lines.add(text.substring(start, end));
+        }
+        lines.add(text.substring(start));
+        return lines;
+    }
+}
@@ -0,0 +1,75 @@
+package shared;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Checks that {@link LineCompression} round-trips replies and rejects
+ * malformed {@code Z} lines with an {@link IllegalArgumentException} before
+ * allocating anything for them: negative, zero, oversized and non-numeric
+ * lengths, bad base64, data that is not deflated, and a length that does
+ * not match what the data inflates to.
+ * <p>
+ * Usage: {@code java -cp auctionhouse.jar shared.LineCompressionCheck}
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Dustin Ferguson
+ * @author Christian Maestas
+ * @author Isaac Tapia
+ */
+public class LineCompressionCheck {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        List<String> reply = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            reply.add(Message.encode("ITEM", String.valueOf(i), "Antique Vase " + i,
+                    String.valueOf(10 + i), String.valueOf(20 + i)));
+        }
+        reply.add("END_ITEMS");
+        String packed = LineCompression.pack(reply, 1);
+        check("round trip", LineCompression.unpack(packed).equals(reply));
+
+        String data = packed.split(" ", 3)[2];
+        int length = Integer.parseInt(packed.split(" ", 3)[1]);
+        String garbage = Base64.getEncoder().encodeToString(
+                "not deflated".getBytes(StandardCharsets.UTF_8));
+
+        rejects("not packed", "ITEM 1 Vase 10 20");
+        rejects("missing data", "Z 10");
+        rejects("negative length", "Z -5 " + data);
+        rejects("zero length", "Z 0 " + data);
+        rejects("non-numeric length", "Z abc " + data);
+        rejects("length overflowing int", "Z 99999999999 " + data);
+        rejects("length over the limit", "Z " + (LineCompression.MAX_LENGTH + 1) + " " + data);
+        rejects("bad base64", "Z 10 !!!");
+        rejects("not deflated", "Z 12 " + garbage);
+        rejects("length too long", "Z " + (length + 1) + " " + data);
+        rejects("length too short", "Z " + (length - 1) + " " + data);
+
+        System.out.println(failures == 0 ? "PASS" : "FAIL");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void rejects(String name, String line) {
+        try {
+            LineCompression.unpack(line);
+            check(name, false);
+        } catch (IllegalArgumentException e) {
+            check(name + " (" + e.getMessage() + ")", true);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            check(name + " (" + e + ")", false);
+        }
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "ok    " : "FAIL  ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package shared;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An in-memory stand-in for one direction of a connection, for clients and
+ * servers running in the same JVM. Protocol lines added on one side are read
+ * on the other through an ordinary {@link BufferedReader}, so code written
+ * against a socket reader runs unchanged, but no bytes are encoded or copied.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Dustin Ferguson
+ * @author Christian Maestas
+ * @author Isaac Tapia
+ */
+public class LineQueue {
+
+    // Compared by identity, so no real line can be mistaken for it
+    private static final String END = new String("END");
+
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private final BufferedReader reader = new QueueReader();
+    private boolean closed = false;
+
+    /**
+     * Adds one line for the reader.
+     *
+     * @param line the message, without a line terminator
+     * @return false if the queue has been closed and the line was dropped
+     */
+    public synchronized boolean add(String line) {
+        if (closed) {
+            return false;
+        }
+        lines.add(line);
+        return true;
+    }
+
+    /**
+     * Ends the stream; the reader returns null once it has read every line
+     * added before.
+     */
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            lines.add(END);
+        }
+    }
+
+    /**
+     * @return true if the queue has been closed
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return the reading side, whose {@code readLine} blocks until a line is added
+     */
+    public BufferedReader reader() {
+        return reader;
+    }
+
+    /**
+     * Returns a writer that adds each line printed to it, for code that sends
+     * through a {@link PrintWriter}.
+     *
+     * @return a new auto-flushing writer into this queue
+     */
+    public PrintWriter writer() {
+        return new PrintWriter(new QueueWriter(), true);
+    }
+
+    private class QueueReader extends BufferedReader {
+
+        QueueReader() {
+            super(Reader.nullReader());
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            String line;
+            try {
+                line = lines.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a line");
+            }
+            if (line == END) {
+                // Leave the marker for any later read
+                lines.add(END);
+                return null;
+            }
+            return line;
+        }
+
+        @Override
+        public boolean ready() {
+            return !lines.isEmpty();
+        }
+
+        @Override
+        public void close() {
+            LineQueue.this.close();
+        }
+    }
+
+    private class QueueWriter extends Writer {
+
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public synchronized void write(char[] chars, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                char c = chars[i];
+                if (c == '\n') {
+                    int end = partial.length();
+                    if (end > 0 && partial.charAt(end - 1) == '\r') {
+                        partial.setLength(end - 1);
+                    }
+                    add(partial.toString());
+                    partial.setLength(0);
+                } else {
+                    partial.append(c);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            LineQueue.this.close();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package shared;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parameters for a paginated, filtered LIST request.
+ * Encodes to and decodes from keyword/value pairs following the LIST command,
+ * e.g. {@code LIST SORT PRICE MIN 100 MAX 500 AFTER 250:7 LIMIT 50}.
+ * <p>
+ * The auction house answers with up to {@code LIMIT} ITEM lines followed by
+ * {@code END_ITEMS <cursor>} when more items may follow, or a bare
+ * {@code END_ITEMS} when the listing is exhausted. A page may hold fewer than
+ * {@code LIMIT} items, even none, and still carry a cursor, so callers should
+ * keep paging until the cursor is absent.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Dustin Ferguson
+ * @author Christian Maestas
+ * @author Isaac Tapia
+ */
+public class ListQuery {
+
+    /**
+     * Supported result orderings.
+     */
+    public enum Sort {
+        ID, PRICE, PRICE_DESC
+    }
+
+    /**
+     * Largest page the auction house will return for a single query.
+     */
+    public static final int MAX_LIMIT = 500;
+
+    private Sort sort = Sort.ID;
+    private int minPrice = 0;
+    private int maxPrice = Integer.MAX_VALUE;
+    private int limit = MAX_LIMIT;
+    private String after;
+    private boolean hasMore = true;
+
+    /**
+     * @return the requested ordering
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * @param sort the ordering to request
+     */
+    public void setSort(Sort sort) {
+        this.sort = sort;
+    }
+
+    /**
+     * @return the lowest price (current bid, or minimum bid if unbid) to include
+     */
+    public int getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * @param minPrice the lowest price to include
+     */
+    public void setMinPrice(int minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    /**
+     * @return the highest price to include
+     */
+    public int getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * @param maxPrice the highest price to include
+     */
+    public void setMaxPrice(int maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * @return the maximum number of items to return
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @param limit the maximum number of items to return, capped at {@link #MAX_LIMIT}
+     */
+    public void setLimit(int limit) {
+        this.limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * @return the cursor of the last item already seen, or null for the first page
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    /**
+     * @param after the cursor returned by the previous page, or null to restart
+     */
+    public void setAfter(String after) {
+        this.after = after;
+        this.hasMore = true;
+    }
+
+    /**
+     * @return true until a page has been received without a continuation cursor
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Advances this query past a received page.
+     *
+     * @param nextCursor the cursor from END_ITEMS, or null if the listing is exhausted
+     */
+    public void advance(String nextCursor) {
+        this.after = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    /**
+     * Builds the cursor identifying an item's position in the given ordering.
+     *
+     * @param sort   the ordering the cursor belongs to
+     * @param itemId the item ID
+     * @param price  the item's current price
+     * @return an opaque cursor string
+     */
+    public static String cursorFor(Sort sort, int itemId, int price) {
+        return sort == Sort.ID ? String.valueOf(itemId) : price + ":" + itemId;
+    }
+
+    /**
+     * Packs a price and item ID into a single key that orders by price, then ID.
+     *
+     * @param price  the item price
+     * @param itemId the item ID
+     * @return the sort key
+     */
+    public static long priceKey(int price, int itemId) {
+        return ((long) price << 32) | (itemId & 0xffffffffL);
+    }
+
+    /**
+     * @return the ID-order cursor, or 0 if this is the first page
+     */
+    public int afterId() {
+        if (after == null) return 0;
+        int colon = after.indexOf(':');
+        return Integer.parseInt(colon < 0 ? after : after.substring(colon + 1));
+    }
+
+    /**
+     * @return the price-order cursor as a {@link #priceKey} value, or null if this is the first page
+     */
+    public Long afterPriceKey() {
+        if (after == null) return null;
+        int colon = after.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Price cursor expected: " + after);
+        }
+        return priceKey(Integer.parseInt(after.substring(0, colon)),
+                Integer.parseInt(after.substring(colon + 1)));
+    }
+
+    /**
+     * Encodes this query as a LIST command line.
+     *
+     * @return the message line to send
+     */
+    public String encode() {
+        List<String> args = new ArrayList<>();
+        args.add("SORT");
+        args.add(sort.name());
+        if (minPrice > 0) {
+            args.add("MIN");
+            args.add(String.valueOf(minPrice));
+        }
+        if (maxPrice < Integer.MAX_VALUE) {
+            args.add("MAX");
+            args.add(String.valueOf(maxPrice));
+        }
+        if (after != null) {
+            args.add("AFTER");
+            args.add(after);
+        }
+        args.add("LIMIT");
+        args.add(String.valueOf(limit));
+        return Message.encode("LIST", args.toArray(new String[0]));
+    }
+
+    /**
+     * Decodes the keyword/value pairs of a LIST command.
+     *
+     * @param tokens the decoded message tokens, starting with LIST
+     * @return the parsed query
+     * @throws IllegalArgumentException if a keyword or value is malformed
+     */
+    public static ListQuery decode(String[] tokens) {
+        ListQuery query = new ListQuery();
+        if (tokens.length % 2 == 0) {
+            throw new IllegalArgumentException("Unpaired LIST argument");
+        }
+        for (int i = 1; i < tokens.length; i += 2) {
+            String value = tokens[i + 1];
+            switch (tokens[i].toUpperCase()) {
+                case "SORT" -> query.setSort(Sort.valueOf(value.toUpperCase()));
+                case "MIN" -> query.setMinPrice(Integer.parseInt(value));
+                case "MAX" -> query.setMaxPrice(Integer.parseInt(value));
+                case "LIMIT" -> query.setLimit(Integer.parseInt(value));
+                case "AFTER" -> query.setAfter(value);
+                default -> throw new IllegalArgumentException("Unknown LIST argument: " + tokens[i]);
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,255 @@
+package shared;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+
+/**
+ * Bank client for auction houses on the same machine as the bank. Fund holds,
+ * releases and transfers go through the bank's {@link SharedMemoryRing}
+ * instead of a new TCP connection per call; registration and deregistration,
+ * which happen once per process, still use a {@link SocketBankClient}.
+ * <p>
+ * Use {@link #connect(String, int)} to pick this transport automatically when
+ * the bank publishes a ring on this machine, falling back to sockets otherwise.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Dustin Ferguson
+ * @author Christian Maestas
+ * @author Isaac Tapia
+ */
+public class SharedMemoryBankClient implements BankClient {
+
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    private final SharedMemoryRing ring;
+    private final SocketBankClient sockets;
+    private volatile boolean broken = false;
+
+    /**
+     * @param ring    the ring published by the bank
+     * @param sockets the client used for registration and for calls the ring cannot carry
+     */
+    public SharedMemoryBankClient(SharedMemoryRing ring, SocketBankClient sockets) {
+        this.ring = ring;
+        this.sockets = sockets;
+    }
+
+    /**
+     * Returns the fastest available client for a bank: a shared memory client
+     * if the bank runs on this machine and publishes a ring, otherwise a
+     * socket client. Setting {@code -Dbank.shm=false} always uses sockets.
+     *
+     * @param bankHost the bank's hostname or IP address
+     * @param bankPort the bank's listening port
+     * @return a client for the bank
+     */
+    public static BankClient connect(String bankHost, int bankPort) {
+        SocketBankClient sockets = new SocketBankClient(bankHost, bankPort);
+        if (!Boolean.parseBoolean(System.getProperty("bank.shm", "true"))) {
+            return sockets;
+        }
+        try {
+            InetAddress address = InetAddress.getByName(bankHost);
+            if (!address.isLoopbackAddress() && NetworkInterface.getByInetAddress(address) == null) {
+                return sockets;
+            }
+            SharedMemoryRing ring = SharedMemoryRing.open(SharedMemoryRing.pathFor(bankPort));
+            if (ring == null) {
+                return sockets;
+            }
+            System.out.println("Using shared memory to reach the bank");
+            return new SharedMemoryBankClient(ring, sockets);
+        } catch (IOException e) {
+            return sockets;
+        }
+    }
+
+    @Override
+    public int registerAuctionHouse(String host, int port) {
+        return sockets.registerAuctionHouse(host, port);
+    }
+
+    @Override
+    public int registerAgent(String name, int initialBalance) {
+        return sockets.registerAgent(name, initialBalance);
+    }
+
+    @Override
+    public void deregister(int id) {
+        sockets.deregister(id);
+    }
+
+    @Override
+    public boolean blockFunds(int agentId, int amount) {
+        String line = Message.encode("BLOCK_FUNDS", String.valueOf(agentId), String.valueOf(amount));
+        int slot = claim(line);
+        if (slot < 0) {
+            return sockets.blockFunds(agentId, amount);
+        }
+        String response = call(slot, line);
+        return response != null && response.startsWith("OK");
+    }
+
+    @Override
+    public boolean[] blockFundsBatch(int[] agentIds, int[] amounts) {
+        String[] args = new String[agentIds.length * 2];
+        for (int i = 0; i < agentIds.length; i++) {
+            args[2 * i] = String.valueOf(agentIds[i]);
+            args[2 * i + 1] = String.valueOf(amounts[i]);
+        }
+        String line = Message.encode("BLOCK_FUNDS_BATCH", args);
+        int slot = claim(line);
+        if (slot < 0) {
+            return sockets.blockFundsBatch(agentIds, amounts);
+        }
+        return flags(call(slot, line), agentIds.length);
+    }
+
+    @Override
+    public void unblockFunds(int agentId, int amount) {
+        String line = Message.encode("UNBLOCK_FUNDS", String.valueOf(agentId), String.valueOf(amount));
+        int slot = claim(line);
+        if (slot < 0) {
+            sockets.unblockFunds(agentId, amount);
+            return;
+        }
+        call(slot, line);
+    }
+
+    @Override
+    public void transferFunds(int fromAgentId, int toAuctionHouseId, int amount) {
+        String line = Message.encode("TRANSFER_FUNDS", String.valueOf(fromAgentId),
+                String.valueOf(toAuctionHouseId), String.valueOf(amount));
+        int slot = claim(line);
+        if (slot < 0) {
+            sockets.transferFunds(fromAgentId, toAuctionHouseId, amount);
+            return;
+        }
+        call(slot, line);
+    }
+
+    /**
+     * Settles sales through the ring. If the bank does not answer in time the
+     * outcome is unknown, since the bank may still apply the batch, so this
+     * throws rather than reporting the transfers as refused. The bank pays for
+     * each item once, so the caller can safely resend the batch.
+     *
+     * @throws UncheckedIOException if the bank did not answer in time
+     */
+    @Override
+    public boolean[] transferFundsBatch(int toAuctionHouseId, int[] itemIds, int[] agentIds,
+                                        int[] amounts) {
+        String line = Message.encode("TRANSFER_FUNDS_BATCH",
+                SocketBankClient.transferBatchArgs(toAuctionHouseId, itemIds, agentIds, amounts));
+        int slot = claim(line);
+        if (slot < 0) {
+            return sockets.transferFundsBatch(toAuctionHouseId, itemIds, agentIds, amounts);
+        }
+        String response = call(slot, line);
+        if (response == null) {
+            throw new UncheckedIOException(new IOException("Bank did not answer a settlement in time"));
+        }
+        return flags(response, agentIds.length);
+    }
+
+    /**
+     * Claims a ring slot for a line. The protocol is ASCII, so the line's
+     * length in characters is its length in bytes.
+     *
+     * @return the slot, or -1 if the line must go through sockets: the ring is
+     * abandoned, the line is too long, or no slot came free in time
+     */
+    private int claim(String line) {
+        if (broken || line.length() > SharedMemoryRing.MAX_PAYLOAD) {
+            return -1;
+        }
+        int slot = ring.claim(TIMEOUT_MILLIS);
+        if (slot < 0) {
+            System.err.println("No free shared memory slot; sending through sockets");
+        }
+        return slot;
+    }
+
+    /**
+     * Sends one request through a claimed slot and waits for the reply. If the
+     * bank does not answer in time, the ring is abandoned and later calls use
+     * sockets; the unanswered request is not resent, since the bank may still
+     * apply it. Instead it is handed to {@link #reconcile} in the background.
+     *
+     * @return the reply, or null if the bank did not answer
+     */
+    private String call(int slot, String line) {
+        if (!ring.request(slot, line)) {
+            return null;
+        }
+        String response = ring.awaitResponse(slot, TIMEOUT_MILLIS);
+        if (response == null) {
+            if (!broken) {
+                broken = true;
+                System.err.println("Bank did not answer through shared memory; switching to sockets");
+            }
+            Thread reconciler = new Thread(() -> reconcile(slot, line), "bank-shm-reconcile");
+            reconciler.setDaemon(true);
+            reconciler.start();
+        }
+        return response;
+    }
+
+    /**
+     * Waits for the late reply to a request the caller has already treated as
+     * failed, which also frees its slot for other processes. Holds the bank
+     * applied after all are released again, since the caller went on as if
+     * they had been refused. A late settlement needs nothing: its caller
+     * resends it, and the bank does not pay for an item twice. Gives up if
+     * the bank exits without answering.
+     *
+     * @param slot the slot holding the request
+     * @param line the request
+     */
+    private void reconcile(int slot, String line) {
+        String late = null;
+        while (late == null && ring.isBankAlive()) {
+            late = ring.awaitResponse(slot, TIMEOUT_MILLIS);
+        }
+        if (late == null || !late.startsWith("OK")) {
+            return;
+        }
+
+        String[] request = Message.decode(line);
+        switch (request[0]) {
+            case "BLOCK_FUNDS" -> sockets.unblockFunds(Integer.parseInt(request[1]),
+                    Integer.parseInt(request[2]));
+            case "BLOCK_FUNDS_BATCH" -> {
+                boolean[] held = flags(late, (request.length - 1) / 2);
+                for (int i = 0; i < held.length; i++) {
+                    if (held[i]) {
+                        sockets.unblockFunds(Integer.parseInt(request[2 * i + 1]),
+                                Integer.parseInt(request[2 * i + 2]));
+                    }
+                }
+            }
+            default -> {
+                System.err.println("Bank applied a request after it timed out: " + line);
+                return;
+            }
+        }
+        System.err.println("Released a hold the bank applied after it timed out: " + line);
+    }
+
+    /**
+     * Reads the per-entry 1/0 flags of an {@code OK} reply to a batch request.
+     */
+    private static boolean[] flags(String response, int count) {
+        boolean[] flags = new boolean[count];
+        if (response != null && response.startsWith("OK")) {
+            String[] parts = Message.decode(response);
+            for (int i = 0; i < count && i + 1 < parts.length; i++) {
+                flags[i] = parts[i + 1].equals("1");
+            }
+        }
+        return flags;
+    }
+}
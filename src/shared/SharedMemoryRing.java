@@ -0,0 +1,354 @@
+package shared;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Request slots in a memory-mapped file, shared by the bank and the auction
+ * houses running on the same machine. Each slot carries one bank protocol
+ * line from a client and the bank's one-line reply, so a call costs two
+ * memory writes and a poll instead of a TCP round trip.
+ * <p>
+ * The file starts with a header (magic, slot count, slot size, and the bank's
+ * process ID so clients can tell a stale file from a live bank), followed by
+ * {@link #SLOTS} slots of {@link #SLOT_SIZE} bytes. A slot begins with a state
+ * word and a payload length; its state moves FREE → CLAIMED → REQUEST →
+ * RESPONSE → FREE, where only the client that claimed the slot and the bank
+ * thread serving it ever write to it. State changes use release/acquire
+ * access, so the payload written before a state change is visible to the
+ * other process once it sees the new state.
+ * <p>
+ * The state word also holds the process ID of the client that claimed the
+ * slot, set in the same compare-and-set as the claim. A client that exits
+ * between claiming a slot and reading its reply would otherwise hold the slot
+ * forever, so the bank frees slots whose owner is no longer running with
+ * {@link #reapDead()}. Only the bank's serving thread may reap, so a slot is
+ * never freed while its reply is being written. {@link #claim(long)} gives up
+ * rather than wait forever for a slot.
+ * <p>
+ * Part of CS 351 Project 5 – Distributed Auction.
+ *
+ * @author Dustin Ferguson
+ * @author Christian Maestas
+ * @author Isaac Tapia
+ */
+public class SharedMemoryRing implements AutoCloseable {
+
+    /**
+     * Number of request slots, and so of calls that can be in flight at once.
+     */
+    public static final int SLOTS = 64;
+
+    /**
+     * Size of one slot in bytes, a multiple of the cache line size.
+     */
+    public static final int SLOT_SIZE = 8192;
+
+    /**
+     * Longest request or reply, in bytes, that fits in a slot.
+     */
+    public static final int MAX_PAYLOAD = SLOT_SIZE - 16;
+
+    static final int FREE = 0;
+    static final int CLAIMED = 1;
+    static final int REQUEST = 2;
+    static final int RESPONSE = 3;
+
+    private static final int MAGIC = 0x42414e4b; // "BANK"
+    private static final int HEADER_SIZE = 64;
+    private static final int FILE_SIZE = HEADER_SIZE + SLOTS * SLOT_SIZE;
+    private static final int SPIN_LIMIT = Runtime.getRuntime().availableProcessors() > 1 ? 2_000 : 0;
+    private static final VarHandle INT =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long PID = ProcessHandle.current().pid();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private SharedMemoryRing(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        this.buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns where the bank listening on a port publishes its ring: in
+     * {@code -Dbank.shm.dir} if set, else {@code /dev/shm} when it exists,
+     * else the temporary directory.
+     *
+     * @param bankPort the bank's TCP port
+     * @return the ring file path
+     */
+    public static Path pathFor(int bankPort) {
+        String dir = System.getProperty("bank.shm.dir");
+        if (dir == null || dir.isEmpty()) {
+            Path shm = Path.of("/dev/shm");
+            dir = Files.isDirectory(shm) ? shm.toString() : System.getProperty("java.io.tmpdir");
+        }
+        return Path.of(dir, "auction-bank-" + bankPort + ".ring");
+    }
+
+    /**
+     * Creates the ring file for the bank, with every slot free. The ring is
+     * built in a new file and renamed over any old one, never truncated in
+     * place: a client may still have the old file mapped, and shrinking a
+     * mapped file kills that process on its next access.
+     *
+     * @param path the ring file
+     * @return the mapped ring
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static SharedMemoryRing create(Path path) throws IOException {
+        Path temp = Files.createTempFile(path.toAbsolutePath().getParent(),
+                path.getFileName().toString(), ".tmp");
+        SharedMemoryRing ring;
+        try {
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ring = new SharedMemoryRing(channel);
+            ring.buffer.putInt(4, SLOTS);
+            ring.buffer.putInt(8, SLOT_SIZE);
+            ring.buffer.putLong(16, ProcessHandle.current().pid());
+            // Publish the magic last, so a client never sees a half-written header
+            INT.setRelease(ring.buffer, 0, MAGIC);
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return ring;
+    }
+
+    /**
+     * Opens the ring published by a bank on this machine.
+     *
+     * @param path the ring file
+     * @return the mapped ring, or null if there is no ring or the bank that
+     * created it is no longer running
+     * @throws IOException if the file exists but cannot be mapped
+     */
+    public static SharedMemoryRing open(Path path) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) < FILE_SIZE) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SharedMemoryRing ring = new SharedMemoryRing(channel);
+        boolean live = (int) INT.getAcquire(ring.buffer, 0) == MAGIC
+                && ring.buffer.getInt(4) == SLOTS
+                && ring.buffer.getInt(8) == SLOT_SIZE
+                && ring.isBankAlive();
+        if (!live) {
+            ring.close();
+            return null;
+        }
+        return ring;
+    }
+
+    /**
+     * @return true while the bank that created this ring is running
+     */
+    public boolean isBankAlive() {
+        return ProcessHandle.of(buffer.getLong(16)).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    /**
+     * Claims a free slot for a call, waiting if all are in use.
+     *
+     * @param timeoutMillis how long to wait for a free slot
+     * @return the slot index, or -1 if none came free in time
+     */
+    public int claim(long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        int start = (int) (Thread.currentThread().getId() % SLOTS);
+        long claimed = word(PID, CLAIMED);
+        for (int spins = 0; ; spins++) {
+            for (int i = 0; i < SLOTS; i++) {
+                int slot = (start + i) % SLOTS;
+                if (LONG.compareAndSet(buffer, offset(slot), (long) FREE, claimed)) {
+                    return slot;
+                }
+            }
+            if ((spins & 255) == 255 && System.nanoTime() > deadline) {
+                return -1;
+            }
+            backOff(spins);
+        }
+    }
+
+    /**
+     * Frees every slot claimed by a process that is no longer running,
+     * whatever state it was left in. A request from such a slot is dropped
+     * unanswered, since nobody is left to read the reply.
+     *
+     * @return the number of slots freed
+     */
+    public int reapDead() {
+        int freed = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long word = (long) LONG.getAcquire(buffer, offset(slot));
+            long owner = word >>> 8;
+            if (state(word) == FREE || owner == PID) continue;
+            boolean alive = ProcessHandle.of(owner).map(ProcessHandle::isAlive).orElse(false);
+            if (!alive && LONG.compareAndSet(buffer, offset(slot), word, (long) FREE)) {
+                freed++;
+            }
+        }
+        return freed;
+    }
+
+    /**
+     * Writes a request into a claimed slot and hands it to the bank.
+     *
+     * @param slot the claimed slot
+     * @param line the request line
+     * @return false if the line does not fit in a slot; the slot is then freed
+     */
+    public boolean request(int slot, String line) {
+        try {
+            write(slot, line);
+        } catch (IllegalArgumentException e) {
+            LONG.setRelease(buffer, offset(slot), (long) FREE);
+            return false;
+        }
+        LONG.setRelease(buffer, offset(slot), word(PID, REQUEST));
+        return true;
+    }
+
+    /**
+     * Waits for the bank's reply to a request and frees the slot.
+     *
+     * @param slot          the slot holding the request
+     * @param timeoutMillis how long to wait for the bank
+     * @return the reply line, or null if the bank did not answer in time; the
+     * slot then stays claimed until a later call returns the reply
+     */
+    public String awaitResponse(int slot, long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+        for (int spins = 0; state((long) LONG.getAcquire(buffer, offset(slot))) != RESPONSE; spins++) {
+            if ((spins & 63) == 0 && System.nanoTime() > deadline) {
+                return null;
+            }
+            backOff(spins);
+        }
+        String reply = read(slot);
+        LONG.setRelease(buffer, offset(slot), (long) FREE);
+        return reply;
+    }
+
+    /**
+     * Finds the next slot holding a request, scanning from a position.
+     *
+     * @param from the slot to start scanning at
+     * @return the slot index, or -1 if no request is waiting
+     */
+    public int nextRequest(int from) {
+        for (int i = 0; i < SLOTS; i++) {
+            int slot = (from + i) % SLOTS;
+            if (state((long) LONG.getAcquire(buffer, offset(slot))) == REQUEST) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param slot a slot holding a request
+     * @return the request line
+     */
+    public String readRequest(int slot) {
+        return read(slot);
+    }
+
+    /**
+     * Writes the bank's reply to a request and hands the slot back to its client.
+     *
+     * @param slot the slot holding the request
+     * @param line the reply line; replies too long for a slot are replaced by an error
+     */
+    public void respond(int slot, String line) {
+        long word = (long) LONG.getAcquire(buffer, offset(slot));
+        try {
+            write(slot, line);
+        } catch (IllegalArgumentException e) {
+            write(slot, "ERROR Reply too long");
+        }
+        // Keep the owner, so the slot can still be reaped if its client is gone
+        LONG.compareAndSet(buffer, offset(slot), word, word(word >>> 8, RESPONSE));
+    }
+
+    /**
+     * Spins briefly, then yields, then parks for increasing intervals up to a
+     * millisecond. On a single CPU spinning only delays the other side, so it
+     * starts by yielding.
+     *
+     * @param spins how many times the caller has already waited
+     */
+    public static void backOff(int spins) {
+        if (spins < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if (spins < SPIN_LIMIT + 100) {
+            Thread.yield();
+        } else {
+            int parks = spins - SPIN_LIMIT - 100;
+            LockSupport.parkNanos(Math.min(1_000_000L, 1_000L << Math.min(10, parks / 16)));
+        }
+    }
+
+    /**
+     * Unmaps the ring as far as the JVM allows and closes the file.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing shared memory ring: " + e.getMessage());
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * @return a slot's state word: the owning process ID above a state byte
+     */
+    private static long word(long owner, int state) {
+        return owner << 8 | state;
+    }
+
+    private static int state(long word) {
+        return (int) (word & 0xff);
+    }
+
+    private void write(int slot, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Line too long for a shared memory slot");
+        }
+        buffer.putInt(offset(slot) + 8, bytes.length);
+        buffer.put(offset(slot) + 16, bytes);
+    }
+
+    private String read(int slot) {
+        byte[] bytes = new byte[buffer.getInt(offset(slot) + 8)];
+        buffer.get(offset(slot) + 16, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
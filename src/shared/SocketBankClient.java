@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.net.Socket;
 
 /**
@@ -95,6 +96,33 @@ public class SocketBankClient implements BankClient {
         return response != null && response.startsWith("OK");
     }
 
+    /**
+     * Requests the bank to block funds for several holds in a single request.
+     * Holds are applied in order, each against the agent's remaining balance.
+     *
+     * @param agentIds the agents' account IDs
+     * @param amounts  the amount to block for each agent, in the same order
+     * @return for each hold, true if the funds were blocked
+     */
+    @Override
+    public boolean[] blockFundsBatch(int[] agentIds, int[] amounts) {
+        String[] args = new String[agentIds.length * 2];
+        for (int i = 0; i < agentIds.length; i++) {
+            args[2 * i] = String.valueOf(agentIds[i]);
+            args[2 * i + 1] = String.valueOf(amounts[i]);
+        }
+        String response = sendMessage(Message.encode("BLOCK_FUNDS_BATCH", args));
+
+        boolean[] held = new boolean[agentIds.length];
+        if (response != null && response.startsWith("OK")) {
+            String[] parts = Message.decode(response);
+            for (int i = 0; i < held.length && i + 1 < parts.length; i++) {
+                held[i] = parts[i + 1].equals("1");
+            }
+        }
+        return held;
+    }
+
     /**
      * Requests the bank to unblock previously blocked funds.
      *
@@ -121,6 +149,37 @@ public class SocketBankClient implements BankClient {
         sendMessage(msg);
     }
 
+    /**
+     * Settles several sales for one auction house in a single request,
+     * transferring each agent's blocked funds to the house.
+     *
+     * @param toAuctionHouseId the auction house's account ID
+     * @param itemIds          the sold items
+     * @param agentIds         the winning agents' account IDs, in the same order
+     * @param amounts          the amount to transfer from each agent, in the same order
+     * @return for each transfer, true if the funds were moved
+     * @throws UncheckedIOException if the bank could not be reached or did not
+     *                              reply; the batch may have been applied and can be resent
+     */
+    @Override
+    public boolean[] transferFundsBatch(int toAuctionHouseId, int[] itemIds, int[] agentIds,
+                                        int[] amounts) {
+        String response = sendMessage(Message.encode("TRANSFER_FUNDS_BATCH",
+                transferBatchArgs(toAuctionHouseId, itemIds, agentIds, amounts)));
+        if (response == null) {
+            throw new UncheckedIOException(new IOException("No reply from the bank"));
+        }
+
+        boolean[] transferred = new boolean[agentIds.length];
+        if (response != null && response.startsWith("OK")) {
+            String[] parts = Message.decode(response);
+            for (int i = 0; i < transferred.length && i + 1 < parts.length; i++) {
+                transferred[i] = parts[i + 1].equals("1");
+            }
+        }
+        return transferred;
+    }
+
     /**
      * Sends a single-line message to the bank and returns the response.
      * Opens a socket to the bank host/port, sends the message, and reads one reply.
@@ -141,4 +200,22 @@ public class SocketBankClient implements BankClient {
             return null;
         }
     }
+
+    /**
+     * Builds the arguments of a {@code TRANSFER_FUNDS_BATCH} request: the
+     * house, then an item, agent and amount for each sale.
+     *
+     * @return the request arguments
+     */
+    static String[] transferBatchArgs(int toAuctionHouseId, int[] itemIds, int[] agentIds,
+                                      int[] amounts) {
+        String[] args = new String[agentIds.length * 3 + 1];
+        args[0] = String.valueOf(toAuctionHouseId);
+        for (int i = 0; i < agentIds.length; i++) {
+            args[3 * i + 1] = String.valueOf(itemIds[i]);
+            args[3 * i + 2] = String.valueOf(agentIds[i]);
+            args[3 * i + 3] = String.valueOf(amounts[i]);
+        }
+        return args;
+    }
 }